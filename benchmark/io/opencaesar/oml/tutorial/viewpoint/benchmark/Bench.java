@@ -0,0 +1,119 @@
+package io.opencaesar.oml.tutorial.viewpoint.benchmark;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * A minimal benchmark harness in the spirit of JMH: each benchmark runs a number of
+ * warmup iterations, then measured iterations whose setup is excluded from timing,
+ * and reports throughput, average and p99 latency, and allocation per operation.
+ *
+ * Results are printed as CSV lines so that runs on different commits can be diffed.
+ */
+public final class Bench {
+
+	public static final String HEADER = "benchmark,size,iterations,ops_per_s,avg_us,p99_us,alloc_bytes_per_op";
+
+	private final PrintStream out;
+
+	private final int warmups;
+
+	private final int iterations;
+
+	private final AllocationCounter allocations = AllocationCounter.create();
+
+	public Bench(PrintStream out, int warmups, int iterations) {
+		this.out = out;
+		this.warmups = warmups;
+		this.iterations = iterations;
+		out.println(HEADER);
+	}
+
+	/**
+	 * An operation to benchmark, with an untimed setup run before every invocation.
+	 */
+	public interface Operation {
+		default void setup() {
+		}
+
+		Object run();
+	}
+
+	public void run(String name, int size, Operation operation) {
+		for (int i = 0; i < warmups; i++) {
+			operation.setup();
+			consume(operation.run());
+		}
+		var nanos = new long[iterations];
+		long allocated = 0;
+		long thread = Thread.currentThread().getId();
+		for (int i = 0; i < iterations; i++) {
+			operation.setup();
+			long bytes = (allocations != null) ? allocations.get(thread) : 0;
+			long start = System.nanoTime();
+			consume(operation.run());
+			nanos[i] = System.nanoTime() - start;
+			if (allocations != null) {
+				allocated += allocations.get(thread) - bytes;
+			}
+		}
+		long total = Arrays.stream(nanos).sum();
+		Arrays.sort(nanos);
+		long p99 = nanos[Math.min(nanos.length - 1, (int) Math.ceil(nanos.length * 0.99) - 1)];
+		out.printf("%s,%d,%d,%.1f,%.3f,%.3f,%s%n",
+				name,
+				size,
+				iterations,
+				iterations * 1e9 / Math.max(total, 1),
+				total / 1e3 / iterations,
+				p99 / 1e3,
+				(allocations != null) ? Long.toString(allocated / iterations) : "n/a");
+	}
+
+	/**
+	 * Reads the bytes allocated by a thread through the HotSpot extension of the thread
+	 * MXBean, looked up reflectively since it isn't part of the Java SE API.
+	 */
+	private static final class AllocationCounter {
+		private final Object bean;
+		private final Method getAllocatedBytes;
+
+		private AllocationCounter(Object bean, Method getAllocatedBytes) {
+			this.bean = bean;
+			this.getAllocatedBytes = getAllocatedBytes;
+		}
+
+		/**
+		 * Returns a counter, or null if the JVM can't measure allocations.
+		 */
+		static AllocationCounter create() {
+			try {
+				var type = Class.forName("com.sun.management.ThreadMXBean");
+				var bean = ManagementFactory.getThreadMXBean();
+				if (!type.isInstance(bean) || !(Boolean) type.getMethod("isThreadAllocatedMemorySupported").invoke(bean)) {
+					return null;
+				}
+				type.getMethod("setThreadAllocatedMemoryEnabled", boolean.class).invoke(bean, true);
+				return new AllocationCounter(bean, type.getMethod("getThreadAllocatedBytes", long.class));
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				return null;
+			}
+		}
+
+		long get(long thread) {
+			try {
+				return (Long) getAllocatedBytes.invoke(bean, thread);
+			} catch (ReflectiveOperationException e) {
+				return 0;
+			}
+		}
+	}
+
+	private static volatile Object sink;
+
+	private static void consume(Object result) {
+		sink = result;
+	}
+}
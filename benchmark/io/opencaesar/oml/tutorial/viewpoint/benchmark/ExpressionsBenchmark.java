@@ -0,0 +1,229 @@
+package io.opencaesar.oml.tutorial.viewpoint.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.eclipse.acceleo.query.parser.AstResult;
+import org.eclipse.acceleo.query.runtime.Query;
+import org.eclipse.acceleo.query.runtime.ServiceUtils;
+import org.eclipse.acceleo.query.runtime.impl.Nothing;
+import org.eclipse.acceleo.query.runtime.impl.QueryBuilderEngine;
+import org.eclipse.acceleo.query.runtime.impl.QueryEvaluationEngine;
+import org.eclipse.emf.ecore.EObject;
+
+import io.opencaesar.oml.LinkAssertion;
+import io.opencaesar.oml.OmlPackage;
+import io.opencaesar.oml.RelationCardinalityRestrictionAxiom;
+import io.opencaesar.oml.RelationEntity;
+import io.opencaesar.oml.RelationRestrictionAxiom;
+import io.opencaesar.oml.util.OmlRead;
+import io.opencaesar.oml.util.OmlSearch;
+import io.opencaesar.oml.tutorial.viewpoint.Services;
+
+/**
+ * Compares the odesign expressions that used to be inline AQL with the {@link Services}
+ * that replaced them, on {@link SyntheticModels}.
+ *
+ * Each expression is first evaluated both ways on every element it applies to, and the
+ * benchmark exits with status 1 if any result differs ({@link ExpressionsParity} runs
+ * only that check). Then both ways are measured
+ * after a one-name edit of the model, for the elements a refresh of the representation
+ * evaluates them on:
+ * <ul>
+ * <li>Entity Diagram: the restriction edge labels and the cardinality end labels</li>
+ * <li>Objectives Table: the Id and Canonical Name cells</li>
+ * <li>Properties view: the candidates of a relation entity's source and of a link's target</li>
+ * </ul>
+ *
+ * Arguments are the same as {@link ServicesBenchmark}'s.
+ */
+public final class ExpressionsBenchmark {
+
+	public static void main(String[] args) {
+		var options = parse(args);
+		var links = Double.parseDouble(options.getOrDefault("links", "1.0"));
+		var references = Double.parseDouble(options.getOrDefault("references", "0.1"));
+		var seed = Long.parseLong(options.getOrDefault("seed", "42"));
+		var bench = new Bench(System.out,
+				Integer.parseInt(options.getOrDefault("warmups", "5")),
+				Integer.parseInt(options.getOrDefault("iterations", "20")));
+
+		var mismatches = 0;
+		for (var size : options.getOrDefault("sizes", "1000,10000,100000").split(",")) {
+			int statements = Integer.parseInt(size.trim());
+			var model = new SyntheticModels(statements, links, references, seed);
+			for (var expression : expressions(model)) {
+				mismatches += expression.check();
+				expression.run(bench, statements, model);
+			}
+		}
+		if (mismatches > 0) {
+			System.err.println(mismatches + " results differ between AQL and Java");
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Returns the expressions to compare, with the elements of the given model they are
+	 * evaluated on.
+	 */
+	static List<Expression> expressions(SyntheticModels model) {
+		var restrictions = new ArrayList<EObject>(Services.getVisualizedRestrictions(model.vocabulary));
+		var cardinalities = new ArrayList<EObject>();
+		for (var restriction : restrictions) {
+			if (restriction instanceof RelationCardinalityRestrictionAxiom) {
+				cardinalities.add(restriction);
+			}
+		}
+		var relationEntities = new ArrayList<EObject>();
+		for (var statement : model.vocabulary.getOwnedStatements()) {
+			if (statement instanceof RelationEntity && relationEntities.size() < 10) {
+				relationEntities.add(statement);
+			}
+		}
+		var links = new ArrayList<EObject>();
+		for (var instance : model.instances) {
+			for (LinkAssertion link : instance.getOwnedLinks()) {
+				if (links.size() < 10) {
+					links.add(link);
+				}
+			}
+		}
+		var cells = new ArrayList<EObject>(model.instances.subList(0, Math.min(model.instances.size(), 1000)));
+
+		return List.of(
+			new Expression("Entity Diagram:restrictionLabel", restrictions,
+				"if self.kind = oml::RangeRestrictionKind::all then '\u2200 ' else '\u2203 ' endif+self.relation.name",
+				self -> Services.render((RelationRestrictionAxiom) self)),
+			new Expression("Entity Diagram:cardinalityLabel", cardinalities,
+				"if self.kind = oml::CardinalityRestrictionKind::min or self.kind = oml::CardinalityRestrictionKind::exactly then self.cardinality else '0' endif+'..'+ "
+					+ "if self.kind = oml::CardinalityRestrictionKind::max or self.kind = oml::CardinalityRestrictionKind::exactly then self.cardinality else '*' endif",
+				self -> Services.renderCardinality((RelationCardinalityRestrictionAxiom) self)),
+			new Expression("Objectives Table:idCell", cells,
+				"self->filter(oml::ConceptInstance).findScalarPropertyValuesByAbbreviatedIri('base:hasIdentifier')->first().getLexicalValue()",
+				self -> Services.getScalarPropertyLexicalValue(self, "base:hasIdentifier")),
+			new Expression("Objectives Table:canonicalNameCell", cells,
+				"self->filter(oml::ConceptInstance).findScalarPropertyValuesByAbbreviatedIri('base:hasCanonicalName')->first().getLexicalValue()",
+				self -> Services.getScalarPropertyLexicalValue(self, "base:hasCanonicalName")),
+			new Expression("Properties:entityCandidates", relationEntities,
+				"self.getOntology().getStatements()->filter(oml::Entity)->sortedBy(i | i.name)",
+				self -> Services.getSortedEntities(((RelationEntity) self).getOntology())),
+			new Expression("Properties:instanceCandidates", links,
+				"self.getOntology().getStatements()->filter(oml::ConceptInstance)->excluding(self.getSource())->sortedBy(i | i.name)",
+				self -> Services.getSortedConceptInstances(((LinkAssertion) self).getOntology(), OmlRead.getSource((LinkAssertion) self))));
+	}
+
+	/**
+	 * An inline AQL expression and the service that replaced it.
+	 */
+	static final class Expression {
+		final String name;
+		final List<EObject> elements;
+		final String aql;
+		final AstResult ast;
+		final QueryEvaluationEngine engine;
+		final Function<EObject, Object> java;
+
+		Expression(String name, List<EObject> elements, String aql, Function<EObject, Object> java) {
+			this.name = name;
+			this.elements = elements;
+			this.aql = aql;
+			this.java = java;
+			var environment = Query.newEnvironmentWithDefaultServices(null);
+			environment.registerEPackage(OmlPackage.eINSTANCE);
+			ServiceUtils.registerServices(environment, ServiceUtils.getServices(environment, OmlSearch.class));
+			ServiceUtils.registerServices(environment, ServiceUtils.getServices(environment, OmlRead.class));
+			ServiceUtils.registerServices(environment, ServiceUtils.getServices(environment, Services.class));
+			this.ast = new QueryBuilderEngine(environment).build(aql);
+			this.engine = new QueryEvaluationEngine(environment);
+		}
+
+		Object evaluate(EObject self) {
+			var variables = new HashMap<String, Object>();
+			variables.put("self", self);
+			var result = engine.eval(ast, variables).getResult();
+			if (result instanceof Nothing) {
+				return null;
+			}
+			return (result instanceof Collection<?>) ? new ArrayList<>((Collection<?>) result) : result;
+		}
+
+		/**
+		 * Returns the number of elements on which the AQL and the service disagree.
+		 */
+		int check() {
+			int mismatches = 0;
+			for (var element : elements) {
+				var expected = evaluate(element);
+				var actual = java.apply(element);
+				if (actual instanceof Collection<?>) {
+					actual = new ArrayList<>((Collection<?>) actual);
+				}
+				if (!Objects.equals(expected, actual)) {
+					if (mismatches == 0) {
+						System.err.println(name + ": " + aql + " gives " + expected + " but the service gives " + actual + " on " + element);
+					}
+					mismatches++;
+				}
+			}
+			return mismatches;
+		}
+
+		void run(Bench bench, int size, SyntheticModels model) {
+			bench.run("aql:" + name, size, new Edited(model) {
+				public Object run() {
+					Object last = null;
+					for (var element : elements) {
+						last = evaluate(element);
+					}
+					return last;
+				}
+			});
+			bench.run("java:" + name, size, new Edited(model) {
+				public Object run() {
+					Object last = null;
+					for (var element : elements) {
+						last = java.apply(element);
+					}
+					return last;
+				}
+			});
+		}
+	}
+
+	/**
+	 * An operation measured after renaming an entity and an instance, as a refresh
+	 * following an edit would be.
+	 */
+	private abstract static class Edited implements Bench.Operation {
+		private final SyntheticModels model;
+		private int edits;
+
+		Edited(SyntheticModels model) {
+			this.model = model;
+		}
+
+		@Override
+		public void setup() {
+			((RelationEntity) model.vocabulary.getOwnedStatements().get(3)).setName("Relation0_" + edits);
+			model.instances.get(0).setName("instance0_" + edits);
+			edits++;
+		}
+	}
+
+	private static Map<String, String> parse(String[] args) {
+		var options = new HashMap<String, String>();
+		for (var arg : args) {
+			int equals = arg.indexOf('=');
+			if (equals > 0) {
+				options.put(arg.substring(0, equals), arg.substring(equals + 1));
+			}
+		}
+		return options;
+	}
+}
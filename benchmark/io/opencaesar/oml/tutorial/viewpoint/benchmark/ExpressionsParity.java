@@ -0,0 +1,57 @@
+package io.opencaesar.oml.tutorial.viewpoint.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Checks that the services that replaced inline AQL expressions of the odesign give the
+ * same results as those expressions (see {@link ExpressionsBenchmark}), without
+ * measuring them.
+ *
+ * Prints the first difference of each expression and exits with status 1 if any result
+ * differs. Arguments are <code>sizes</code>, <code>links</code>, <code>references</code>
+ * and <code>seed</code>, as for {@link ServicesBenchmark}.
+ */
+public final class ExpressionsParity {
+
+	public static void main(String[] args) {
+		var options = parse(args);
+		var links = Double.parseDouble(options.getOrDefault("links", "1.0"));
+		var references = Double.parseDouble(options.getOrDefault("references", "0.1"));
+		var seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+		var mismatches = 0;
+		for (var size : options.getOrDefault("sizes", "1000,10000").split(",")) {
+			var model = new SyntheticModels(Integer.parseInt(size.trim()), links, references, seed);
+			mismatches += check(model);
+		}
+		if (mismatches > 0) {
+			System.err.println(mismatches + " results differ between AQL and Java");
+			System.exit(1);
+		}
+		System.out.println("All results agree between AQL and Java");
+	}
+
+	/**
+	 * Returns the number of elements of the given model on which an expression and its
+	 * service disagree.
+	 */
+	static int check(SyntheticModels model) {
+		var mismatches = 0;
+		for (var expression : ExpressionsBenchmark.expressions(model)) {
+			mismatches += expression.check();
+		}
+		return mismatches;
+	}
+
+	private static Map<String, String> parse(String[] args) {
+		var options = new HashMap<String, String>();
+		for (var arg : args) {
+			int equals = arg.indexOf('=');
+			if (equals > 0) {
+				options.put(arg.substring(0, equals), arg.substring(equals + 1));
+			}
+		}
+		return options;
+	}
+}
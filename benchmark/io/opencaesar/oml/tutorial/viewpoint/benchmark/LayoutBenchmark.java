@@ -0,0 +1,115 @@
+package io.opencaesar.oml.tutorial.viewpoint.benchmark;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import io.opencaesar.oml.tutorial.viewpoint.LayeredLayout;
+
+/**
+ * Measures the {@link LayeredLayout} of the Objectives Diagram on synthetic aggregation
+ * hierarchies: a forest where each objective is aggregated by an earlier one, plus
+ * extra aggregations between random pairs.
+ *
+ * Two operations are measured for each size:
+ * <ul>
+ * <li><code>layout:full</code>: a layout of the whole hierarchy, as on the first layout of a diagram</li>
+ * <li><code>layout:incremental</code>: the placement of the newest objectives, the others keeping the
+ * positions of a full layout, as after creating or importing objectives</li>
+ * </ul>
+ *
+ * Arguments are <code>key=value</code> pairs: <code>sizes</code> (comma separated node
+ * counts), <code>links</code> (extra aggregations per node), <code>roots</code> (share of
+ * root objectives), <code>new</code> (share of objectives placed incrementally),
+ * <code>seed</code>, <code>warmups</code> and <code>iterations</code>.
+ */
+public final class LayoutBenchmark {
+
+	private static final int WIDTH = 120;
+
+	private static final int HEIGHT = 60;
+
+	public static void main(String[] args) {
+		var options = parse(args);
+		var links = Double.parseDouble(options.getOrDefault("links", "0.2"));
+		var roots = Double.parseDouble(options.getOrDefault("roots", "0.01"));
+		var added = Double.parseDouble(options.getOrDefault("new", "0.01"));
+		var seed = Long.parseLong(options.getOrDefault("seed", "42"));
+		var bench = new Bench(System.out,
+				Integer.parseInt(options.getOrDefault("warmups", "5")),
+				Integer.parseInt(options.getOrDefault("iterations", "20")));
+
+		for (var size : options.getOrDefault("sizes", "1000,10000,50000").split(",")) {
+			int nodes = Integer.parseInt(size.trim());
+			var edges = generate(nodes, links, roots, new Random(seed));
+			int fixed = nodes - (int) Math.ceil(nodes * added);
+
+			bench.run("layout:full", nodes, () -> {
+				var layout = create(nodes, edges);
+				layout.run();
+				return layout;
+			});
+
+			var full = create(nodes, edges);
+			full.run();
+			bench.run("layout:incremental", nodes, new Bench.Operation() {
+				private LayeredLayout layout;
+
+				@Override
+				public void setup() {
+					layout = create(nodes, edges);
+					for (int node = 0; node < fixed; node++) {
+						layout.fix(node, full.getX(node), full.getY(node));
+					}
+				}
+
+				@Override
+				public Object run() {
+					layout.run();
+					return layout;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Returns the aggregations as pairs of parent and child indices, parents coming
+	 * before their children.
+	 */
+	private static int[] generate(int nodes, double links, double roots, Random random) {
+		var edges = new int[2 * (nodes + (int) Math.ceil(nodes * links) + 1)];
+		int count = 0;
+		for (int node = 1; node < nodes; node++) {
+			if (random.nextDouble() >= roots) {
+				edges[count++] = random.nextInt(node);
+				edges[count++] = node;
+			}
+		}
+		for (int i = 0; i < (int) (nodes * links) && nodes > 1; i++) {
+			int child = 1 + random.nextInt(nodes - 1);
+			edges[count++] = random.nextInt(child);
+			edges[count++] = child;
+		}
+		return Arrays.copyOf(edges, count);
+	}
+
+	private static LayeredLayout create(int nodes, int[] edges) {
+		var layout = new LayeredLayout(nodes, WIDTH, HEIGHT);
+		for (int i = 0; i < edges.length; i += 2) {
+			layout.addEdge(edges[i], edges[i + 1]);
+		}
+		return layout;
+	}
+
+	private static Map<String, String> parse(String[] args) {
+		var options = new HashMap<String, String>();
+		for (var arg : args) {
+			int equals = arg.indexOf('=');
+			if (equals > 0) {
+				options.put(arg.substring(0, equals), arg.substring(equals + 1));
+			}
+		}
+		return options;
+	}
+}
@@ -0,0 +1,114 @@
+package io.opencaesar.oml.tutorial.viewpoint.benchmark;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import io.opencaesar.oml.ConceptInstance;
+import io.opencaesar.oml.Description;
+import io.opencaesar.oml.Literal;
+import io.opencaesar.oml.OmlFactory;
+import io.opencaesar.oml.ScalarProperty;
+import io.opencaesar.oml.tutorial.viewpoint.Services;
+
+/**
+ * Measures the heap retained by the literals of a description's scalar property values,
+ * when created as plain quoted literals of the values' string forms (as
+ * <code>asLiteral</code> used to) and when created by {@link Services#asLiteral(Object,
+ * io.opencaesar.oml.Ontology)}.
+ *
+ * Arguments are given as <code>key=value</code> pairs:
+ * <ul>
+ * <li><code>assertions</code>: the number of property value assertions (default <code>100000</code>)</li>
+ * <li><code>distinct</code>: the number of distinct values of each kind (default <code>1000</code>)</li>
+ * <li><code>seed</code>: seed of the value generator (default <code>42</code>)</li>
+ * </ul>
+ *
+ * Values are a mix of integers, booleans, dates and strings; strings are copied per
+ * assertion, as they would be when parsed from a file.
+ */
+public final class LiteralBenchmark {
+
+	public static final String HEADER = "factory,assertions,distinct,retained_bytes,bytes_per_assertion";
+
+	public static void main(String[] args) {
+		var options = parse(args);
+		var assertions = Integer.parseInt(options.getOrDefault("assertions", "100000"));
+		var distinct = Integer.parseInt(options.getOrDefault("distinct", "1000"));
+		var seed = Long.parseLong(options.getOrDefault("seed", "42"));
+		var model = new SyntheticModels(10, 0, 0, seed);
+		var property = (ScalarProperty) model.vocabulary.getOwnedStatements().stream()
+				.filter(s -> s instanceof ScalarProperty)
+				.findFirst().get();
+
+		System.out.println(HEADER);
+		long plain = measure("plain", model, property, assertions, distinct, seed, LiteralBenchmark::plainLiteral);
+		long typed = measure("asLiteral", model, property, assertions, distinct, seed, v -> Services.asLiteral(v, model.description));
+		System.out.printf("saved,%d,%d,%d,%.1f%n", assertions, distinct, plain - typed, (plain - typed) / (double) assertions);
+	}
+
+	private static long measure(String name, SyntheticModels model, ScalarProperty property, int assertions, int distinct, long seed, Function<Object, Literal> factory) {
+		var random = new Random(seed);
+		long before = usedHeap();
+		var holder = createHolder(model.description);
+		for (int i = 0; i < assertions; i++) {
+			var assertion = OmlFactory.eINSTANCE.createScalarPropertyValueAssertion();
+			assertion.setProperty(property);
+			assertion.setValue(factory.apply(value(random, distinct)));
+			holder.getOwnedPropertyValues().add(assertion);
+		}
+		long retained = usedHeap() - before;
+		System.out.printf("%s,%d,%d,%d,%.1f%n", name, assertions, distinct, retained, retained / (double) assertions);
+		model.description.getOwnedStatements().remove(holder);
+		return retained;
+	}
+
+	private static ConceptInstance createHolder(Description description) {
+		var holder = OmlFactory.eINSTANCE.createConceptInstance();
+		holder.setName("literalHolder");
+		description.getOwnedStatements().add(holder);
+		return holder;
+	}
+
+	private static Object value(Random random, int distinct) {
+		int n = random.nextInt(distinct);
+		switch (random.nextInt(4)) {
+			case 0: return n;
+			case 1: return n % 2 == 0;
+			case 2: return LocalDate.ofEpochDay(18000 + n);
+			default: return "identifier-" + n;
+		}
+	}
+
+	/**
+	 * The literal <code>asLiteral</code> created before it supported typed values.
+	 */
+	private static Literal plainLiteral(Object value) {
+		var literal = OmlFactory.eINSTANCE.createQuotedLiteral();
+		literal.setValue(value.toString());
+		return literal;
+	}
+
+	private static long usedHeap() {
+		var runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+		}
+		return used;
+	}
+
+	private static Map<String, String> parse(String[] args) {
+		var options = new HashMap<String, String>();
+		for (var arg : args) {
+			int equals = arg.indexOf('=');
+			if (equals > 0) {
+				options.put(arg.substring(0, equals), arg.substring(equals + 1));
+			}
+		}
+		return options;
+	}
+}
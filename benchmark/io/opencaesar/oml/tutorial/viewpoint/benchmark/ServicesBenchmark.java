@@ -0,0 +1,145 @@
+package io.opencaesar.oml.tutorial.viewpoint.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.opencaesar.oml.ConceptInstance;
+import io.opencaesar.oml.Entity;
+import io.opencaesar.oml.NamedInstance;
+import io.opencaesar.oml.tutorial.viewpoint.Services;
+
+/**
+ * Benchmarks the viewpoint {@link Services} queries on {@link SyntheticModels}.
+ *
+ * Arguments are given as <code>key=value</code> pairs:
+ * <ul>
+ * <li><code>sizes</code>: comma separated statement counts (default <code>1000,10000,100000</code>)</li>
+ * <li><code>links</code>: average links per instance (default <code>1.0</code>)</li>
+ * <li><code>references</code>: ratio of reference statements (default <code>0.1</code>)</li>
+ * <li><code>warmups</code>, <code>iterations</code>: iteration counts (default <code>5</code>, <code>20</code>)</li>
+ * <li><code>seed</code>: seed of the model generator (default <code>42</code>)</li>
+ * </ul>
+ *
+ * The visualization queries are measured after a one-name edit of the model, which
+ * is what a diagram refresh following a user edit has to pay for.
+ */
+public final class ServicesBenchmark {
+
+	public static void main(String[] args) {
+		var options = parse(args);
+		var links = Double.parseDouble(options.getOrDefault("links", "1.0"));
+		var references = Double.parseDouble(options.getOrDefault("references", "0.1"));
+		var seed = Long.parseLong(options.getOrDefault("seed", "42"));
+		var bench = new Bench(System.out,
+				Integer.parseInt(options.getOrDefault("warmups", "5")),
+				Integer.parseInt(options.getOrDefault("iterations", "20")));
+
+		for (var size : options.getOrDefault("sizes", "1000,10000,100000").split(",")) {
+			int statements = Integer.parseInt(size.trim());
+			var model = new SyntheticModels(statements, links, references, seed);
+			run(bench, statements, model);
+		}
+	}
+
+	private static void run(Bench bench, int size, SyntheticModels model) {
+		var entity = (Entity) model.vocabulary.getOwnedStatements().get(1);
+		var instance = model.instances.get(0);
+
+		bench.run("getVisualizedEntities", size, new Bench.Operation() {
+			int edits;
+			public void setup() {
+				entity.setName("Concept0_" + edits++);
+			}
+			public Object run() {
+				return Services.getVisualizedEntities(model.vocabulary);
+			}
+		});
+
+		bench.run("getVisualizedNamedInstances", size, new Bench.Operation() {
+			int edits;
+			public void setup() {
+				instance.setName("instance0_" + edits++);
+			}
+			public Object run() {
+				return Services.getVisualizedNamedInstances(model.description);
+			}
+		});
+
+		bench.run("getVisualizedLinks", size, new Bench.Operation() {
+			int edits;
+			public void setup() {
+				instance.setName("instance0_" + edits++);
+			}
+			public Object run() {
+				return Services.getVisualizedLinks(model.description);
+			}
+		});
+
+		bench.run("getTypes", size, () -> {
+			int length = 0;
+			for (var visualized : Services.getVisualizedNamedInstances(model.description)) {
+				if (visualized instanceof ConceptInstance) {
+					length += Services.getTypes((ConceptInstance) visualized, model.description).length();
+				}
+			}
+			return length;
+		});
+
+		bench.run("getVisualizedScalarPropertyValues", size, () -> {
+			int count = 0;
+			for (var visualized : Services.getVisualizedNamedInstances(model.description)) {
+				count += Services.getVisualizedScalarPropertyValues(visualized, model.description).size();
+			}
+			return count;
+		});
+
+		bench.run("setPropertyByAbbreviatedIri", size, new Bench.Operation() {
+			int edits;
+			public Object run() {
+				Services.setPropertyByAbbreviatedIri(instance, "base:hasIdentifier", "id" + edits++);
+				return instance;
+			}
+		});
+
+		var column = new ArrayList<String>();
+		bench.run("setPropertyValuesByAbbreviatedIri", size, new Bench.Operation() {
+			int edits;
+			public void setup() {
+				column.clear();
+				for (int i = 0; i < model.instances.size(); i++) {
+					column.add("id" + edits + "_" + i);
+				}
+				edits++;
+			}
+			public Object run() {
+				return Services.setPropertyValuesByAbbreviatedIri(model.instances, "base:hasIdentifier", column);
+			}
+		});
+
+		var deletable = new ArrayList<NamedInstance>(model.instances.subList(1, model.instances.size()));
+		bench.run("deleteNamedInstance", size, new Bench.Operation() {
+			NamedInstance next;
+			public void setup() {
+				next = deletable.isEmpty() ? null : deletable.remove(deletable.size() - 1);
+			}
+			public Object run() {
+				if (next != null) {
+					Services.deleteNamedInstance(next);
+				}
+				return next;
+			}
+		});
+	}
+
+	private static Map<String, String> parse(String[] args) {
+		var options = new HashMap<String, String>();
+		for (var arg : args) {
+			int equals = arg.indexOf('=');
+			if (equals > 0) {
+				options.put(arg.substring(0, equals), arg.substring(equals + 1));
+			}
+		}
+		return options;
+	}
+}
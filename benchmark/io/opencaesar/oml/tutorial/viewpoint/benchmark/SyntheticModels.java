@@ -0,0 +1,208 @@
+package io.opencaesar.oml.tutorial.viewpoint.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+
+import io.opencaesar.oml.CardinalityRestrictionKind;
+import io.opencaesar.oml.Concept;
+import io.opencaesar.oml.ConceptInstance;
+import io.opencaesar.oml.Description;
+import io.opencaesar.oml.ForwardRelation;
+import io.opencaesar.oml.ImportKind;
+import io.opencaesar.oml.OmlFactory;
+import io.opencaesar.oml.Ontology;
+import io.opencaesar.oml.RangeRestrictionKind;
+import io.opencaesar.oml.RelationEntity;
+import io.opencaesar.oml.ScalarProperty;
+import io.opencaesar.oml.Vocabulary;
+import io.opencaesar.oml.util.OmlFactory2;
+
+/**
+ * Generates synthetic OML models headlessly, for benchmarking the viewpoint services.
+ *
+ * A model is made of a vocabulary (prefix <code>base</code>) of concepts, scalar
+ * properties, relation entities, specializations, and range and cardinality
+ * restrictions, a description of concept instances with types, property values and
+ * links, and a second description holding the instances that the first one refers to.
+ */
+public final class SyntheticModels {
+
+	public static final String VOCABULARY_NAMESPACE = "http://example.com/benchmark/base#";
+
+	public static final String DESCRIPTION_NAMESPACE = "http://example.com/benchmark/description#";
+
+	public static final String REFERENCED_NAMESPACE = "http://example.com/benchmark/referenced#";
+
+	public final ResourceSet resourceSet = new ResourceSetImpl();
+
+	public final Vocabulary vocabulary;
+
+	public final Description description;
+
+	public final Description referenced;
+
+	public final List<ConceptInstance> instances = new ArrayList<>();
+
+	public final List<ConceptInstance> referencedInstances = new ArrayList<>();
+
+	private final OmlFactory factory = OmlFactory.eINSTANCE;
+
+	private final Random random;
+
+	/**
+	 * Generates a model.
+	 *
+	 * @param statements the number of statements in the vocabulary and in the description
+	 * @param linkDensity the average number of links per instance
+	 * @param referenceRatio the ratio of description statements that are references to instances of another description
+	 * @param seed the seed of the random generator, so that runs are comparable
+	 */
+	public SyntheticModels(int statements, double linkDensity, double referenceRatio, long seed) {
+		random = new Random(seed);
+		vocabulary = createVocabulary(statements);
+		referenced = createOntology(factory.createDescription(), REFERENCED_NAMESPACE, "referenced");
+		description = createOntology(factory.createDescription(), DESCRIPTION_NAMESPACE, "description");
+		populateDescriptions(statements, linkDensity, referenceRatio);
+	}
+
+	private <T extends Ontology> T createOntology(T ontology, String namespace, String prefix) {
+		ontology.setNamespace(namespace);
+		ontology.setPrefix(prefix);
+		var resource = new ResourceImpl(URI.createURI(namespace.substring(0, namespace.length() - 1) + ".oml"));
+		resource.getContents().add(ontology);
+		resourceSet.getResources().add(resource);
+		return ontology;
+	}
+
+	private Vocabulary createVocabulary(int statements) {
+		var vocabulary = createOntology(factory.createVocabulary(), VOCABULARY_NAMESPACE, "base");
+
+		var string = factory.createFacetedScalar();
+		string.setName("string");
+		vocabulary.getOwnedStatements().add(string);
+
+		var concepts = new ArrayList<Concept>();
+		var relations = new ArrayList<ForwardRelation>();
+		int count = Math.max(statements / 4, 1);
+		for (int i = 0; i < count; i++) {
+			var concept = factory.createConcept();
+			concept.setName("Concept" + i);
+			if (!concepts.isEmpty()) {
+				var specialization = factory.createSpecializationAxiom();
+				specialization.setSpecializedTerm(pick(concepts));
+				concept.getOwnedSpecializations().add(specialization);
+			}
+			vocabulary.getOwnedStatements().add(concept);
+			concepts.add(concept);
+
+			var property = factory.createScalarProperty();
+			property.setName(i == 0 ? "hasIdentifier" : (i == 1 ? "hasCanonicalName" : "property" + i));
+			property.setDomain(concept);
+			property.setRange(string);
+			vocabulary.getOwnedStatements().add(property);
+
+			var relationEntity = factory.createRelationEntity();
+			relationEntity.setName("Relation" + i);
+			relationEntity.setSource(pick(concepts));
+			relationEntity.setTarget(pick(concepts));
+			var forward = OmlFactory2.INSTANCE.create(ForwardRelation.class);
+			forward.setName(i == 0 ? "aggregates" : "relation" + i);
+			relationEntity.setForwardRelation(forward);
+			vocabulary.getOwnedStatements().add(relationEntity);
+			relations.add(forward);
+
+			if (i > 0) {
+				var restriction = factory.createRelationRangeRestrictionAxiom();
+				restriction.setKind(RangeRestrictionKind.ALL);
+				restriction.setRelation(pick(relations));
+				restriction.setRange(pick(concepts));
+				concept.getOwnedRelationRestrictions().add(restriction);
+			}
+			if (i % 4 == 3) {
+				// chosen without the random generator, so that the rest of the model stays as it was
+				var cardinality = factory.createRelationCardinalityRestrictionAxiom();
+				cardinality.setKind(CardinalityRestrictionKind.VALUES.get((i / 4) % CardinalityRestrictionKind.VALUES.size()));
+				cardinality.setCardinality(1 + (i / 4) % 3);
+				cardinality.setRelation(relations.get(i / 2));
+				cardinality.setRange(concepts.get(i / 3));
+				concept.getOwnedRelationRestrictions().add(cardinality);
+			}
+		}
+		return vocabulary;
+	}
+
+	private void populateDescriptions(int statements, double linkDensity, double referenceRatio) {
+		for (var ontology : List.of(description, referenced)) {
+			var usage = factory.createImport();
+			usage.setKind(ImportKind.USAGE);
+			usage.setNamespace(VOCABULARY_NAMESPACE);
+			usage.setPrefix("base");
+			ontology.getOwnedImports().add(usage);
+		}
+
+		var concepts = new ArrayList<Concept>();
+		var properties = new ArrayList<ScalarProperty>();
+		var relations = new ArrayList<RelationEntity>();
+		for (var statement : vocabulary.getOwnedStatements()) {
+			if (statement instanceof Concept) {
+				concepts.add((Concept) statement);
+			} else if (statement instanceof ScalarProperty) {
+				properties.add((ScalarProperty) statement);
+			} else if (statement instanceof RelationEntity) {
+				relations.add((RelationEntity) statement);
+			}
+		}
+
+		int referenceCount = (int) (statements * referenceRatio);
+		for (int i = 0; i < referenceCount; i++) {
+			var instance = createInstance("referenced" + i, concepts, properties);
+			referenced.getOwnedStatements().add(instance);
+			referencedInstances.add(instance);
+		}
+		for (int i = 0; i < statements - referenceCount; i++) {
+			var instance = createInstance("instance" + i, concepts, properties);
+			description.getOwnedStatements().add(instance);
+			instances.add(instance);
+		}
+		for (var target : referencedInstances) {
+			var reference = factory.createConceptInstanceReference();
+			reference.setInstance(target);
+			description.getOwnedStatements().add(reference);
+		}
+
+		if (!instances.isEmpty()) {
+			int linkCount = (int) (instances.size() * linkDensity);
+			for (int i = 0; i < linkCount; i++) {
+				var link = factory.createLinkAssertion();
+				link.setRelation(pick(relations).getForwardRelation());
+				link.setTarget(random.nextInt(Math.max(referenceCount + instances.size(), 1)) < referenceCount ? pick(referencedInstances) : pick(instances));
+				pick(instances).getOwnedLinks().add(link);
+			}
+		}
+	}
+
+	private ConceptInstance createInstance(String name, List<Concept> concepts, List<ScalarProperty> properties) {
+		var instance = factory.createConceptInstance();
+		instance.setName(name);
+		var type = factory.createConceptTypeAssertion();
+		type.setType(pick(concepts));
+		instance.getOwnedTypes().add(type);
+		var value = factory.createScalarPropertyValueAssertion();
+		value.setProperty(pick(properties));
+		var literal = factory.createQuotedLiteral();
+		literal.setValue(name);
+		value.setValue(literal);
+		instance.getOwnedPropertyValues().add(value);
+		return instance;
+	}
+
+	private <T> T pick(List<T> list) {
+		return list.get(random.nextInt(list.size()));
+	}
+}
@@ -1,10 +1,10 @@
 package io.opencaesar.oml.tutorial.viewpoint;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
 
-import org.eclipse.sirius.business.api.componentization.ViewpointRegistry;
-import org.eclipse.sirius.viewpoint.description.Viewpoint;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
 
@@ -15,10 +15,13 @@ public class Activator extends AbstractUIPlugin {
     // The plug-in ID
     public static final String PLUGIN_ID = "oml-tutorial-viewpoint";
 
+    // The id of the headless model summary application
+    public static final String SUMMARY_APPLICATION = PLUGIN_ID + ".summary";
+
     // The shared instance
     private static Activator plugin;
 
-    private static Set<Viewpoint> viewpoints; 
+    private ViewpointRegistration registration;
 
     /**
      * The constructor
@@ -34,8 +37,18 @@ public class Activator extends AbstractUIPlugin {
     public void start(BundleContext context) throws Exception {
       super.start(context);
 	  plugin = this;
-	  viewpoints = new HashSet<Viewpoint>();
-	  viewpoints.addAll(ViewpointRegistry.getInstance().registerFromPlugin(PLUGIN_ID + "/description/oml-tutorial-viewpoint.odesign")); 
+	  Precomputation.install();
+	  VocabularyIndex.installPreferences();
+	  if (!isHeadless()) {
+	    registration = new ViewpointRegistration();
+	    registration.install();
+	    RefreshScope.install();
+	  }
+	  try {
+	    ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(ServiceMetrics.INSTANCE, ServiceMetricsMXBean.class, true), new ObjectName(ServiceMetricsMXBean.OBJECT_NAME));
+	  } catch (Exception e) {
+	    ViewpointLog.error("metrics", "Can't register the service metrics with JMX", e);
+	  }
     }
 
     /*
@@ -45,12 +58,23 @@ public class Activator extends AbstractUIPlugin {
      */
     public void stop(BundleContext context) throws Exception {
 	plugin = null;
-	if (viewpoints != null) {
-	    for (final Viewpoint viewpoint: viewpoints) {
-		ViewpointRegistry.getInstance().disposeFromPlugin(viewpoint);
+	Precomputation.shutdown();
+	VocabularyIndex.uninstallPreferences();
+	if (!isHeadless()) {
+	    RefreshScope.uninstall();
+	}
+	VisualizationCache.shutdown();
+	try {
+	    var name = new ObjectName(ServiceMetricsMXBean.OBJECT_NAME);
+	    if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+		ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
 	    }
-	    viewpoints.clear();
-	    viewpoints = null; 
+	} catch (Exception e) {
+	    // the platform MBean server is going away with the VM
+	}
+	if (registration != null) {
+	    registration.dispose();
+	    registration = null;
 	}
 	super.stop(context);
     }
@@ -63,4 +87,15 @@ public class Activator extends AbstractUIPlugin {
     public static Activator getDefault() {
 	return plugin;
     }
+
+    /**
+     * Returns whether the plug-in runs in the headless model summary application, where
+     * the viewpoint registration, the refresh filter and the caches kept in the state
+     * location are not used.
+     * 
+     * @return whether the plug-in runs headless
+     */
+    public static boolean isHeadless() {
+	return SUMMARY_APPLICATION.equals(System.getProperty("eclipse.application"));
+    }
 }
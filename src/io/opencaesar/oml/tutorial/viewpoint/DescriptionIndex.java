@@ -0,0 +1,380 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+
+import io.opencaesar.oml.ConceptInstance;
+import io.opencaesar.oml.ConceptInstanceReference;
+import io.opencaesar.oml.Description;
+import io.opencaesar.oml.LinkAssertion;
+import io.opencaesar.oml.NamedInstance;
+import io.opencaesar.oml.NamedInstanceReference;
+import io.opencaesar.oml.OmlPackage;
+import io.opencaesar.oml.RelationInstance;
+import io.opencaesar.oml.util.OmlRead;
+
+/**
+ * An incrementally maintained view model of the instances and links visualized
+ * for a description.
+ *
+ * The index is attached to the description as an adapter. Each owned statement
+ * contributes a fixed set of instances and links, and the visualized sets are
+ * kept as reference counts over those contributions. When a statement (or
+ * anything nested in it) changes, only that statement's contribution is
+ * recomputed.
+ *
+ * A statement linking to a relation instance also contributes the ends of that
+ * instance, so it is recomputed when those ends change; relation instances of other
+ * descriptions are observed with a separate adapter for as long as they are linked.
+ *
+ * The initial contributions of very large descriptions can be computed in
+ * parallel (see {@link Parallelism}), except for the ends of the linked relation
+ * instances, which can be in other resources.
+ *
+ * The index also keeps an identity map from each resolved instance to the
+ * local references to it, so that per-node lookups done in label expressions
+ * are constant time, and the owned concept
+ * instances sorted by name, which are offered as link targets in the properties view.
+ */
+class DescriptionIndex extends EContentAdapter {
+
+	private final Description description;
+
+	private final Map<EObject, Contribution> contributions = new HashMap<>();
+
+	private final Map<RelationInstance, Set<EObject>> dependents = new HashMap<>();
+
+	private final Map<NamedInstance, Integer> instances = new LinkedHashMap<>();
+
+	private final Map<LinkAssertion, Integer> links = new LinkedHashMap<>();
+
+	private final Map<NamedInstance, List<NamedInstanceReference>> references = new HashMap<>();
+
+	private Set<NamedInstance> instancesSnapshot;
+
+	private Set<LinkAssertion> linksSnapshot;
+
+	private List<ConceptInstance> conceptInstancesSnapshot;
+
+	private final Adapter observer = new AdapterImpl() {
+		@Override
+		public void notifyChanged(Notification notification) {
+			var feature = notification.getFeature();
+			if (!notification.isTouch() && (feature == OmlPackage.Literals.RELATION_INSTANCE__SOURCES || feature == OmlPackage.Literals.RELATION_INSTANCE__TARGETS)) {
+				updateDependents((RelationInstance) notification.getNotifier());
+			}
+		}
+	};
+
+	private DescriptionIndex(Description description) {
+		this.description = description;
+		var statements = description.getOwnedStatements();
+		if (Parallelism.isParallel(statements.size())) {
+			Parallelism.prepare(description);
+			var chunks = Parallelism.mapChunks(statements, chunk -> {
+				var contributions = new ArrayList<Contribution>(chunk.size());
+				for (var statement : chunk) {
+					contributions.add(new Contribution(statement));
+				}
+				return contributions;
+			});
+			// the ends of linked relation instances can be in other resources, whose
+			// proxies weren't resolved up front, so they are added sequentially
+			int i = 0;
+			for (var chunk : chunks) {
+				for (var contribution : chunk) {
+					add(statements.get(i++), contribution.addDependencyEnds());
+				}
+			}
+		} else {
+			for (var statement : statements) {
+				add(statement);
+			}
+		}
+	}
+
+	/**
+	 * Returns the index attached to the given description, attaching a new one if needed.
+	 */
+	static DescriptionIndex get(Description description) {
+		synchronized (description) {
+			for (Adapter adapter : description.eAdapters()) {
+				if (adapter instanceof DescriptionIndex) {
+					return (DescriptionIndex) adapter;
+				}
+			}
+			var index = new DescriptionIndex(description);
+			description.eAdapters().add(index);
+			return index;
+		}
+	}
+
+	synchronized Set<NamedInstance> getVisualizedNamedInstances() {
+		if (instancesSnapshot == null) {
+			instancesSnapshot = Collections.unmodifiableSet(new LinkedHashSet<>(instances.keySet()));
+		}
+		return instancesSnapshot;
+	}
+
+	synchronized Set<LinkAssertion> getVisualizedLinks() {
+		if (linksSnapshot == null) {
+			linksSnapshot = Collections.unmodifiableSet(new LinkedHashSet<>(links.keySet()));
+		}
+		return linksSnapshot;
+	}
+
+	/**
+	 * Returns the concept instances owned by the description, sorted by name.
+	 */
+	synchronized List<ConceptInstance> getSortedConceptInstances() {
+		if (conceptInstancesSnapshot == null) {
+			var list = new ArrayList<ConceptInstance>();
+			for (var statement : description.getOwnedStatements()) {
+				if (statement instanceof ConceptInstance) {
+					list.add((ConceptInstance) statement);
+				}
+			}
+			list.sort(ObjectiveIndex.BY_NAME);
+			conceptInstancesSnapshot = Collections.unmodifiableList(list);
+		}
+		return conceptInstancesSnapshot;
+	}
+
+	/**
+	 * Returns a local reference to the given instance in the description, or null if none.
+	 */
+	synchronized NamedInstanceReference getReference(NamedInstance instance) {
+		var local = references.get(instance);
+		return (local != null) ? local.get(0) : null;
+	}
+
+	/**
+	 * Returns the local references in the description by referenced instance.
+	 */
+	synchronized Map<NamedInstance, List<NamedInstanceReference>> getReferences() {
+		var copy = new LinkedHashMap<NamedInstance, List<NamedInstanceReference>>();
+		references.forEach((instance, local) -> copy.put(instance, new ArrayList<>(local)));
+		return copy;
+	}
+
+	@Override
+	public synchronized void notifyChanged(Notification notification) {
+		super.notifyChanged(notification);
+		if (notification.isTouch()) {
+			return;
+		}
+		var notifier = notification.getNotifier();
+		if (notifier == description) {
+			if (notification.getFeature() == OmlPackage.Literals.DESCRIPTION__OWNED_STATEMENTS) {
+				switch (notification.getEventType()) {
+					case Notification.ADD:
+						add((EObject) notification.getNewValue());
+						break;
+					case Notification.ADD_MANY:
+						for (Object statement : (Collection<?>) notification.getNewValue()) {
+							add((EObject) statement);
+						}
+						break;
+					case Notification.REMOVE:
+						remove((EObject) notification.getOldValue());
+						break;
+					case Notification.REMOVE_MANY:
+						for (Object statement : (Collection<?>) notification.getOldValue()) {
+							remove((EObject) statement);
+						}
+						break;
+					case Notification.SET:
+						remove((EObject) notification.getOldValue());
+						add((EObject) notification.getNewValue());
+						break;
+					default:
+						break;
+				}
+			}
+		} else if (notifier instanceof EObject) {
+			var statement = getStatement((EObject) notifier);
+			if (statement != null) {
+				update(statement);
+				if (statement instanceof RelationInstance) {
+					updateDependents((RelationInstance) statement);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Recomputes the statements linking to the given relation instance, whose ends changed.
+	 */
+	private synchronized void updateDependents(RelationInstance instance) {
+		var linking = dependents.get(instance);
+		if (linking != null) {
+			for (var dependent : new ArrayList<>(linking)) {
+				update(dependent);
+			}
+		}
+	}
+
+	private EObject getStatement(EObject object) {
+		while (object != null && object.eContainer() != description) {
+			object = object.eContainer();
+		}
+		return object;
+	}
+
+	private void add(EObject statement) {
+		if (statement == null) {
+			return;
+		}
+		add(statement, new Contribution(statement).addDependencyEnds());
+	}
+
+	private void add(EObject statement, Contribution contribution) {
+		contributions.put(statement, contribution);
+		for (var instance : contribution.instances) {
+			instances.merge(instance, 1, Integer::sum);
+		}
+		for (var link : contribution.links) {
+			links.merge(link, 1, Integer::sum);
+		}
+		if (contribution.resolved != null) {
+			references.computeIfAbsent(contribution.resolved, k -> new ArrayList<>(1)).add((NamedInstanceReference) statement);
+		}
+		for (var dependency : contribution.dependencies) {
+			var linking = dependents.computeIfAbsent(dependency, k -> new LinkedHashSet<>());
+			if (linking.isEmpty() && getStatement(dependency) == null) {
+				// a relation instance of another description
+				dependency.eAdapters().add(observer);
+			}
+			linking.add(statement);
+		}
+		invalidate(statement, contribution);
+	}
+
+	private void remove(EObject statement) {
+		var contribution = contributions.remove(statement);
+		if (contribution == null) {
+			return;
+		}
+		for (var instance : contribution.instances) {
+			instances.computeIfPresent(instance, (k, count) -> count == 1 ? null : count - 1);
+		}
+		for (var link : contribution.links) {
+			links.computeIfPresent(link, (k, count) -> count == 1 ? null : count - 1);
+		}
+		if (contribution.resolved != null) {
+			var local = references.get(contribution.resolved);
+			if (local != null && local.remove(statement) && local.isEmpty()) {
+				references.remove(contribution.resolved);
+			}
+		}
+		for (var dependency : contribution.dependencies) {
+			var linking = dependents.get(dependency);
+			if (linking != null && linking.remove(statement) && linking.isEmpty()) {
+				dependents.remove(dependency);
+				dependency.eAdapters().remove(observer);
+			}
+		}
+		invalidate(statement, contribution);
+	}
+
+	private void update(EObject statement) {
+		remove(statement);
+		add(statement);
+	}
+
+	private void invalidate(EObject statement, Contribution contribution) {
+		if (statement instanceof ConceptInstance) {
+			conceptInstancesSnapshot = null;
+		}
+		if (!contribution.instances.isEmpty()) {
+			instancesSnapshot = null;
+		}
+		if (!contribution.links.isEmpty()) {
+			linksSnapshot = null;
+		}
+	}
+
+	/**
+	 * The instances and links that a single owned statement contributes to the diagram.
+	 */
+	private static class Contribution {
+		final List<NamedInstance> instances = new ArrayList<>();
+		final List<LinkAssertion> links = new ArrayList<>();
+		final List<RelationInstance> dependencies = new ArrayList<>();
+		NamedInstance resolved;
+
+		Contribution(EObject statement) {
+			if (statement instanceof NamedInstance) {
+				var instance = (NamedInstance) statement;
+				// direct instances
+				instances.add(instance);
+				// related instances
+				if (instance instanceof RelationInstance) {
+					addEnds((RelationInstance) instance);
+				}
+				// linked instances
+				for (var link : instance.getOwnedLinks()) {
+					if (instance instanceof ConceptInstance) {
+						links.add(link);
+					}
+					var target = link.getTarget();
+					if (target instanceof RelationInstance) {
+						dependencies.add((RelationInstance) target);
+					}
+					add(target);
+				}
+			} else if (statement instanceof NamedInstanceReference) {
+				var reference = (NamedInstanceReference) statement;
+				// reference instances
+				resolved = (NamedInstance) OmlRead.resolve(reference);
+				add(resolved);
+				// linked instances
+				for (var link : reference.getOwnedLinks()) {
+					if (reference instanceof ConceptInstanceReference) {
+						links.add(link);
+					}
+					add(link.getTarget());
+				}
+			}
+		}
+
+		/**
+		 * Adds the ends of the linked relation instances, which can resolve proxies and
+		 * load resources, so it is only done from a single thread.
+		 */
+		Contribution addDependencyEnds() {
+			for (var dependency : dependencies) {
+				addEnds(dependency);
+			}
+			return this;
+		}
+
+		private void addEnds(RelationInstance instance) {
+			if (!instance.getSources().isEmpty()) {
+				add(instance.getSources().get(0));
+			}
+			if (!instance.getTargets().isEmpty()) {
+				add(instance.getTargets().get(0));
+			}
+		}
+
+		private void add(NamedInstance instance) {
+			if (instance != null) {
+				instances.add(instance);
+			}
+		}
+	}
+}
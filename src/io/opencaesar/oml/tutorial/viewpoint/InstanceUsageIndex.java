@@ -0,0 +1,56 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import io.opencaesar.oml.NamedInstance;
+
+/**
+ * An inverse cross-reference index of the named instances used in a resource set,
+ * built in a single pass over its contents.
+ */
+class InstanceUsageIndex extends EcoreUtil.CrossReferencer {
+
+	private static final long serialVersionUID = 1L;
+
+	private InstanceUsageIndex(Collection<?> emfObjects) {
+		super(emfObjects);
+	}
+
+	/**
+	 * Builds the index over the resource set (or resource, or root container) of the given object.
+	 */
+	static InstanceUsageIndex of(EObject object) {
+		Object scope;
+		var resource = object.eResource();
+		if (resource == null) {
+			scope = EcoreUtil.getRootContainer(object);
+		} else if (resource.getResourceSet() == null) {
+			scope = resource;
+		} else {
+			scope = resource.getResourceSet();
+		}
+		var index = new InstanceUsageIndex(Collections.singleton(scope));
+		index.crossReference();
+		index.done();
+		return index;
+	}
+
+	/**
+	 * Returns the settings that refer to the given object.
+	 */
+	Collection<EStructuralFeature.Setting> getUsages(EObject object) {
+		var usages = get(object);
+		return (usages != null) ? usages : Collections.emptyList();
+	}
+
+	@Override
+	protected boolean crossReference(EObject eObject, EReference eReference, EObject crossReferencedEObject) {
+		return crossReferencedEObject instanceof NamedInstance;
+	}
+}
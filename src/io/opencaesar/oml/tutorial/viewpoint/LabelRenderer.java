@@ -0,0 +1,259 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import io.opencaesar.oml.CardinalityRestrictionKind;
+import io.opencaesar.oml.DifferentFromPredicate;
+import io.opencaesar.oml.Entity;
+import io.opencaesar.oml.FeaturePredicate;
+import io.opencaesar.oml.OmlPackage;
+import io.opencaesar.oml.Predicate;
+import io.opencaesar.oml.QuotedLiteral;
+import io.opencaesar.oml.RangeRestrictionKind;
+import io.opencaesar.oml.RelationCardinalityRestrictionAxiom;
+import io.opencaesar.oml.RelationEntityPredicate;
+import io.opencaesar.oml.RelationRangeRestrictionAxiom;
+import io.opencaesar.oml.Rule;
+import io.opencaesar.oml.SameAsPredicate;
+import io.opencaesar.oml.ScalarProperty;
+import io.opencaesar.oml.ScalarPropertyValueAssertion;
+import io.opencaesar.oml.TypePredicate;
+import io.opencaesar.oml.util.OmlRead;
+
+/**
+ * Renders the labels of rules, predicates, relation restrictions, scalar properties
+ * and scalar property value assertions.
+ *
+ * Labels are cached by element identity, so refreshing a row whose element did not
+ * change allocates nothing. The renderer is notified of the changes of the resource
+ * set's OML resources by {@link ModelChanges}: a change drops the labels of the changed element and of its containers, while a
+ * rename, a prefix change or a resource change drops all the labels since those can
+ * show up in the labels of other elements. Labels are built with an EClass switch
+ * into a single reused buffer, and cached and dropped under the same lock, so that a
+ * label computed before a change is never cached after it.
+ */
+class LabelRenderer implements ModelChanges.Listener {
+
+	private final Map<EObject, String> labels = new ConcurrentHashMap<>();
+
+	private final Map<Entity, Map<ScalarProperty, String>> propertyLabels = new ConcurrentHashMap<>();
+
+	private final Map<RelationCardinalityRestrictionAxiom, String> cardinalityLabels = new ConcurrentHashMap<>();
+
+	private final StringBuilder buffer = new StringBuilder(128);
+
+	private LabelRenderer() {
+	}
+
+	/**
+	 * Returns the renderer of the resource set of the given element (or of its resource
+	 * or root container when it has none), creating it if needed.
+	 */
+	static LabelRenderer get(EObject element) {
+		Notifier target;
+		var resource = element.eResource();
+		if (resource == null) {
+			target = EcoreUtil.getRootContainer(element);
+		} else if (resource.getResourceSet() == null) {
+			target = resource;
+		} else {
+			target = resource.getResourceSet();
+		}
+		return ModelChanges.get(target, LabelRenderer.class, t -> new LabelRenderer());
+	}
+
+	/**
+	 * Returns the label of the given rule, predicate, relation restriction or scalar
+	 * property value assertion.
+	 */
+	String render(EObject element) {
+		var label = labels.get(element);
+		if (label == null) {
+			synchronized (this) {
+				buffer.setLength(0);
+				append(element);
+				label = buffer.toString();
+				labels.put(element, label);
+			}
+		}
+		return label;
+	}
+
+	/**
+	 * Returns the label of the given scalar property shown in the given entity.
+	 */
+	String render(ScalarProperty property, Entity entity) {
+		var labels = propertyLabels.get(entity);
+		var label = (labels != null) ? labels.get(property) : null;
+		if (label == null) {
+			synchronized (this) {
+				buffer.setLength(0);
+				appendProperty(property, entity);
+				label = buffer.toString();
+				propertyLabels.computeIfAbsent(entity, k -> new ConcurrentHashMap<>()).put(property, label);
+			}
+		}
+		return label;
+	}
+
+	/**
+	 * Returns the cardinality label (<code>min..max</code>) of the given restriction.
+	 */
+	String renderCardinality(RelationCardinalityRestrictionAxiom restriction) {
+		var label = cardinalityLabels.get(restriction);
+		if (label == null) {
+			synchronized (this) {
+				var kind = restriction.getKind();
+				var min = (kind == CardinalityRestrictionKind.MIN || kind == CardinalityRestrictionKind.EXACTLY) ? String.valueOf(restriction.getCardinality()) : "0";
+				var max = (kind == CardinalityRestrictionKind.MAX || kind == CardinalityRestrictionKind.EXACTLY) ? String.valueOf(restriction.getCardinality()) : "*";
+				label = min + ".." + max;
+				cardinalityLabels.put(restriction, label);
+			}
+		}
+		return label;
+	}
+
+	private void append(EObject element) {
+		switch (element.eClass().getClassifierID()) {
+			case OmlPackage.RULE:
+				var rule = (Rule) element;
+				appendPredicates(rule.getAntecedent());
+				buffer.append(" -> ");
+				appendPredicates(rule.getConsequent());
+				break;
+			case OmlPackage.TYPE_PREDICATE:
+				var type = (TypePredicate) element;
+				buffer.append(type.getType().getName()).append('(').append(type.getVariable()).append(')');
+				break;
+			case OmlPackage.RELATION_ENTITY_PREDICATE:
+				var relation = (RelationEntityPredicate) element;
+				buffer.append(relation.getEntity().getName()).append('(')
+					.append(relation.getVariable1()).append(", ")
+					.append(relation.getEntityVariable()).append(", ")
+					.append(relation.getVariable2()).append(')');
+				break;
+			case OmlPackage.FEATURE_PREDICATE:
+				var feature = (FeaturePredicate) element;
+				buffer.append(feature.getFeature().getName()).append('(')
+					.append(feature.getVariable1()).append(", ")
+					.append(feature.getVariable2()).append(')');
+				break;
+			case OmlPackage.SAME_AS_PREDICATE:
+				var sameAs = (SameAsPredicate) element;
+				buffer.append("SameAs(").append(sameAs.getVariable1()).append(", ").append(sameAs.getVariable2()).append(')');
+				break;
+			case OmlPackage.DIFFERENT_FROM_PREDICATE:
+				var differentFrom = (DifferentFromPredicate) element;
+				buffer.append("DifferentFrom(").append(differentFrom.getVariable1()).append(", ").append(differentFrom.getVariable2()).append(')');
+				break;
+			case OmlPackage.RELATION_RANGE_RESTRICTION_AXIOM:
+				var range = (RelationRangeRestrictionAxiom) element;
+				buffer.append(range.getKind() == RangeRestrictionKind.ALL ? "\u2200 " : "\u2203 ").append(range.getRelation().getName());
+				break;
+			case OmlPackage.RELATION_CARDINALITY_RESTRICTION_AXIOM:
+				// cardinality restrictions are existential
+				var cardinality = (RelationCardinalityRestrictionAxiom) element;
+				buffer.append("\u2203 ").append(cardinality.getRelation().getName());
+				break;
+			case OmlPackage.SCALAR_PROPERTY_VALUE_ASSERTION:
+				var assertion = (ScalarPropertyValueAssertion) element;
+				var value = assertion.getValue();
+				buffer.append(assertion.getProperty().getName()).append(" : ").append(OmlRead.getLexicalValue(value));
+				if (value instanceof QuotedLiteral && ((QuotedLiteral) value).getType() != null) {
+					buffer.append("^^").append(((QuotedLiteral) value).getType().getName());
+				}
+				break;
+			default:
+				break;
+		}
+	}
+
+	private void appendPredicates(List<Predicate> predicates) {
+		for (int i = 0; i < predicates.size(); i++) {
+			if (i > 0) {
+				buffer.append(" ^ ");
+			}
+			append(predicates.get(i));
+		}
+	}
+
+	private void appendProperty(ScalarProperty property, Entity entity) {
+		buffer.append(property.getName()).append(" : ")
+			.append(property.getOntology().getPrefix()).append(':')
+			.append(property.getRange().getName());
+		if (property.isFunctional()) {
+			buffer.append(" [0..1]");
+		}
+		for (var key : entity.getOwnedKeys()) {
+			if (key.getProperties().contains(property)) {
+				buffer.append(" (key)");
+				break;
+			}
+		}
+	}
+
+	@Override
+	public void notifyChanged(Notification notification) {
+		var notifier = notification.getNotifier();
+		var feature = notification.getFeature();
+		if (notifier instanceof Resource) {
+			if (notification.getFeatureID(Resource.class) != Resource.RESOURCE__IS_MODIFIED) {
+				clear();
+			}
+		} else if (feature == OmlPackage.Literals.MEMBER__NAME ||
+				feature == OmlPackage.Literals.ONTOLOGY__PREFIX) {
+			clear();
+		} else if (notifier instanceof EObject) {
+			for (var object = (EObject) notifier; object != null; object = object.eContainer()) {
+				forget(object);
+			}
+			switch (notification.getEventType()) {
+				case Notification.REMOVE:
+				case Notification.SET:
+					forgetTree(notification.getOldValue());
+					break;
+				case Notification.REMOVE_MANY:
+					if (notification.getOldValue() instanceof List<?>) {
+						for (var old : (List<?>) notification.getOldValue()) {
+							forgetTree(old);
+						}
+					}
+					break;
+				default:
+					break;
+			}
+		}
+	}
+
+	private void forgetTree(Object value) {
+		if (value instanceof EObject && ((EObject) value).eContainer() == null) {
+			forget((EObject) value);
+			((EObject) value).eAllContents().forEachRemaining(this::forget);
+		}
+	}
+
+	private synchronized void forget(EObject object) {
+		labels.remove(object);
+		propertyLabels.remove(object);
+		cardinalityLabels.remove(object);
+		if (object instanceof ScalarProperty) {
+			for (var labels : propertyLabels.values()) {
+				labels.remove(object);
+			}
+		}
+	}
+
+	private synchronized void clear() {
+		labels.clear();
+		propertyLabels.clear();
+		cardinalityLabels.clear();
+	}
+}
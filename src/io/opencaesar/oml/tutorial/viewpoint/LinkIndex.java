@@ -0,0 +1,269 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+
+import io.opencaesar.oml.LinkAssertion;
+import io.opencaesar.oml.NamedInstance;
+import io.opencaesar.oml.NamedInstanceReference;
+import io.opencaesar.oml.Ontology;
+import io.opencaesar.oml.Relation;
+import io.opencaesar.oml.util.OmlRead;
+
+/**
+ * An adjacency index of the link assertions in a resource set, keyed by
+ * (source, relation, target).
+ *
+ * The index is notified of the changes of the resource set's OML resources by
+ * {@link ModelChanges}. Links added, removed or retargeted inside loaded ontologies are
+ * re-indexed incrementally; adding or removing OML resources, and loading, unloading
+ * or replacing their contents, mark the index stale so that it is rebuilt on the next
+ * query. Saving a resource, or changing a representation resource, leaves it valid.
+ */
+class LinkIndex implements ModelChanges.Listener {
+
+	private final ResourceSet resourceSet;
+
+	private final Map<LinkAssertion, Key> keys = new HashMap<>();
+
+	private final Map<Key, Set<LinkAssertion>> links = new HashMap<>();
+
+	private final Map<Key, Set<LinkAssertion>> outgoing = new HashMap<>();
+
+	private final Map<Key, Set<LinkAssertion>> incoming = new HashMap<>();
+
+	private boolean valid;
+
+	private LinkIndex(ResourceSet resourceSet) {
+		this.resourceSet = resourceSet;
+	}
+
+	/**
+	 * Returns the index of the given resource set, creating it if needed.
+	 */
+	static LinkIndex get(ResourceSet resourceSet) {
+		return ModelChanges.get(resourceSet, LinkIndex.class, LinkIndex::new);
+	}
+
+	/**
+	 * Returns whether a link with the given source, relation and target exists.
+	 */
+	synchronized boolean hasLink(NamedInstance source, Relation relation, NamedInstance target) {
+		validate();
+		return links.containsKey(new Key(source, relation, target));
+	}
+
+	/**
+	 * Returns the links with the given source, relation and target.
+	 */
+	synchronized List<LinkAssertion> getLinks(NamedInstance source, Relation relation, NamedInstance target) {
+		validate();
+		var result = links.get(new Key(source, relation, target));
+		return (result != null) ? new ArrayList<>(result) : Collections.emptyList();
+	}
+
+	/**
+	 * Returns the distinct targets of the links with the given source and relation.
+	 */
+	synchronized List<NamedInstance> getTargets(NamedInstance source, Relation relation) {
+		validate();
+		var result = outgoing.get(new Key(source, relation, null));
+		if (result == null) {
+			return Collections.emptyList();
+		}
+		var targets = new LinkedHashSet<NamedInstance>();
+		for (var link : result) {
+			targets.add(link.getTarget());
+		}
+		return new ArrayList<>(targets);
+	}
+
+	/**
+	 * Returns whether any link with the given relation and target exists.
+	 */
+	synchronized boolean hasSources(Relation relation, NamedInstance target) {
+		validate();
+		return incoming.containsKey(new Key(null, relation, target));
+	}
+
+	/**
+	 * Returns the distinct sources of the links with the given relation and target.
+	 */
+	synchronized List<NamedInstance> getSources(Relation relation, NamedInstance target) {
+		validate();
+		var result = incoming.get(new Key(null, relation, target));
+		if (result == null) {
+			return Collections.emptyList();
+		}
+		var sources = new LinkedHashSet<NamedInstance>();
+		for (var link : result) {
+			sources.add(OmlRead.getSource(link));
+		}
+		return new ArrayList<>(sources);
+	}
+
+	@Override
+	public synchronized void notifyChanged(Notification notification) {
+		if (!valid) {
+			return;
+		}
+		var notifier = notification.getNotifier();
+		if (notifier instanceof ResourceSet) {
+			if (notification.getFeatureID(ResourceSet.class) == ResourceSet.RESOURCE_SET__RESOURCES) {
+				valid = false;
+			}
+			return;
+		} else if (notifier instanceof Resource) {
+			switch (notification.getFeatureID(Resource.class)) {
+				case Resource.RESOURCE__CONTENTS:
+				case Resource.RESOURCE__IS_LOADED:
+					valid = false;
+					break;
+				default:
+					break;
+			}
+			return;
+		}
+		if (notifier instanceof LinkAssertion) {
+			reindex((LinkAssertion) notifier);
+		} else if (notifier instanceof NamedInstanceReference) {
+			for (var link : ((NamedInstanceReference) notifier).getOwnedLinks()) {
+				reindex(link);
+			}
+		}
+		var feature = notification.getFeature();
+		if (feature instanceof EReference && ((EReference) feature).isContainment()) {
+			switch (notification.getEventType()) {
+				case Notification.ADD:
+				case Notification.ADD_MANY:
+				case Notification.REMOVE:
+				case Notification.REMOVE_MANY:
+				case Notification.SET:
+				case Notification.UNSET:
+					forEachLink(notification.getOldValue(), this::unindex);
+					forEachLink(notification.getNewValue(), this::index);
+					break;
+				default:
+					break;
+			}
+		}
+	}
+
+	private void validate() {
+		if (!valid) {
+			keys.clear();
+			links.clear();
+			outgoing.clear();
+			incoming.clear();
+			valid = true;
+			for (var resource : new ArrayList<>(resourceSet.getResources())) {
+				if (!resource.getContents().isEmpty() && resource.getContents().get(0) instanceof Ontology) {
+					resource.getAllContents().forEachRemaining(o -> {
+						if (o instanceof LinkAssertion) {
+							index((LinkAssertion) o);
+						}
+					});
+				}
+			}
+		}
+	}
+
+	private void index(LinkAssertion link) {
+		unindex(link);
+		var key = new Key(OmlRead.getSource(link), link.getRelation(), link.getTarget());
+		keys.put(link, key);
+		links.computeIfAbsent(key, k -> new LinkedHashSet<>(2)).add(link);
+		outgoing.computeIfAbsent(key.outgoing(), k -> new LinkedHashSet<>()).add(link);
+		incoming.computeIfAbsent(key.incoming(), k -> new LinkedHashSet<>()).add(link);
+	}
+
+	private void unindex(LinkAssertion link) {
+		var key = keys.remove(link);
+		if (key != null) {
+			remove(links, key, link);
+			remove(outgoing, key.outgoing(), link);
+			remove(incoming, key.incoming(), link);
+		}
+	}
+
+	private void reindex(LinkAssertion link) {
+		if (keys.containsKey(link)) {
+			unindex(link);
+			index(link);
+		}
+	}
+
+	private static void remove(Map<Key, Set<LinkAssertion>> map, Key key, LinkAssertion link) {
+		var bucket = map.get(key);
+		if (bucket != null && bucket.remove(link) && bucket.isEmpty()) {
+			map.remove(key);
+		}
+	}
+
+	private static void forEachLink(Object value, Consumer<LinkAssertion> action) {
+		if (value instanceof Collection<?>) {
+			for (var element : (Collection<?>) value) {
+				forEachLink(element, action);
+			}
+		} else if (value instanceof LinkAssertion) {
+			action.accept((LinkAssertion) value);
+		} else if (value instanceof EObject) {
+			((EObject) value).eAllContents().forEachRemaining(o -> {
+				if (o instanceof LinkAssertion) {
+					action.accept((LinkAssertion) o);
+				}
+			});
+		}
+	}
+
+	/**
+	 * An identity key of (source, relation, target).
+	 */
+	private static final class Key {
+		final Object source;
+		final Object relation;
+		final Object target;
+
+		Key(Object source, Object relation, Object target) {
+			this.source = source;
+			this.relation = relation;
+			this.target = target;
+		}
+
+		Key outgoing() {
+			return new Key(source, relation, null);
+		}
+
+		Key incoming() {
+			return new Key(null, relation, target);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			var other = (Key) obj;
+			return source == other.source && relation == other.relation && target == other.target;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(source, relation, target);
+		}
+	}
+}
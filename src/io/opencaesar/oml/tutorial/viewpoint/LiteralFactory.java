@@ -0,0 +1,207 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
+import org.eclipse.emf.ecore.EClass;
+
+import io.opencaesar.oml.BooleanLiteral;
+import io.opencaesar.oml.DecimalLiteral;
+import io.opencaesar.oml.DoubleLiteral;
+import io.opencaesar.oml.IntegerLiteral;
+import io.opencaesar.oml.Literal;
+import io.opencaesar.oml.OmlFactory;
+import io.opencaesar.oml.OmlPackage;
+import io.opencaesar.oml.Ontology;
+import io.opencaesar.oml.QuotedLiteral;
+import io.opencaesar.oml.Scalar;
+
+/**
+ * Creates OML literals from Java values.
+ *
+ * Integers, longs, booleans, doubles and big decimals map to the matching typed
+ * literals; temporal values map to quoted literals typed by the matching xsd scalar
+ * (when the ontology can see the xsd vocabulary); anything else maps to a plain quoted
+ * literal of its string form.
+ *
+ * A literal is contained by the assertion that owns it, so literal objects can't be
+ * shared between assertions. What can be shared is their values: lexical strings and
+ * decimals are interned, and a literal being replaced by one of the same kind is
+ * updated in place instead of being recreated.
+ */
+final class LiteralFactory {
+
+	static final LiteralFactory INSTANCE = new LiteralFactory();
+
+	private final Interner<String> strings = new Interner<>();
+
+	private final Interner<BigDecimal> decimals = new Interner<>();
+
+	private LiteralFactory() {
+	}
+
+	/**
+	 * Returns a new literal for the given value, seen from the given ontology (which may be null).
+	 */
+	Literal create(Object value, Ontology ontology) {
+		var literal = (Literal) OmlFactory.eINSTANCE.create(eClassOf(value));
+		set(literal, value, ontology);
+		return literal;
+	}
+
+	/**
+	 * Returns the given literal updated in place to the given value if it is of the right
+	 * kind, or a new literal otherwise.
+	 */
+	Literal update(Literal literal, Object value, Ontology ontology) {
+		if (literal == null || literal.eClass() != eClassOf(value)) {
+			return create(value, ontology);
+		}
+		if (!matches(literal, value, ontology)) {
+			set(literal, value, ontology);
+		}
+		return literal;
+	}
+
+	/**
+	 * Whether the given literal is the one {@link #create(Object, Ontology)} would create
+	 * for the given value.
+	 */
+	boolean matches(Literal literal, Object value, Ontology ontology) {
+		if (literal == null || literal.eClass() != eClassOf(value)) {
+			return false;
+		}
+		switch (literal.eClass().getClassifierID()) {
+			case OmlPackage.INTEGER_LITERAL:
+				return ((IntegerLiteral) literal).getValue() == ((Number) value).intValue();
+			case OmlPackage.DECIMAL_LITERAL:
+				return Objects.equals(((DecimalLiteral) literal).getValue(), toDecimal(value));
+			case OmlPackage.DOUBLE_LITERAL:
+				return ((DoubleLiteral) literal).getValue() == ((Number) value).doubleValue();
+			case OmlPackage.BOOLEAN_LITERAL:
+				return ((BooleanLiteral) literal).isValue() == (Boolean) value;
+			default:
+				var quoted = (QuotedLiteral) literal;
+				return quoted.getLangTag() == null &&
+					quoted.getType() == typeOf(value, ontology) &&
+					lexicalValueOf(value).equals(quoted.getValue());
+		}
+	}
+
+	private static EClass eClassOf(Object value) {
+		if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return OmlPackage.Literals.INTEGER_LITERAL;
+		} else if (value instanceof Long) {
+			var l = (Long) value;
+			return (l == l.intValue()) ? OmlPackage.Literals.INTEGER_LITERAL : OmlPackage.Literals.DECIMAL_LITERAL;
+		} else if (value instanceof BigDecimal || value instanceof BigInteger) {
+			return OmlPackage.Literals.DECIMAL_LITERAL;
+		} else if (value instanceof Double || value instanceof Float) {
+			return OmlPackage.Literals.DOUBLE_LITERAL;
+		} else if (value instanceof Boolean) {
+			return OmlPackage.Literals.BOOLEAN_LITERAL;
+		}
+		return OmlPackage.Literals.QUOTED_LITERAL;
+	}
+
+	private void set(Literal literal, Object value, Ontology ontology) {
+		switch (literal.eClass().getClassifierID()) {
+			case OmlPackage.INTEGER_LITERAL:
+				((IntegerLiteral) literal).setValue(((Number) value).intValue());
+				break;
+			case OmlPackage.DECIMAL_LITERAL:
+				((DecimalLiteral) literal).setValue(toDecimal(value));
+				break;
+			case OmlPackage.DOUBLE_LITERAL:
+				((DoubleLiteral) literal).setValue(((Number) value).doubleValue());
+				break;
+			case OmlPackage.BOOLEAN_LITERAL:
+				((BooleanLiteral) literal).setValue((Boolean) value);
+				break;
+			default:
+				var quoted = (QuotedLiteral) literal;
+				quoted.setValue(lexicalValueOf(value));
+				quoted.setLangTag(null);
+				quoted.setType(typeOf(value, ontology));
+				break;
+		}
+	}
+
+	private BigDecimal toDecimal(Object value) {
+		BigDecimal decimal;
+		if (value instanceof BigDecimal) {
+			decimal = (BigDecimal) value;
+		} else if (value instanceof BigInteger) {
+			decimal = new BigDecimal((BigInteger) value);
+		} else {
+			decimal = BigDecimal.valueOf(((Number) value).longValue());
+		}
+		return decimals.intern(decimal);
+	}
+
+	private String lexicalValueOf(Object value) {
+		if (value instanceof Date) {
+			value = ((Date) value).toInstant();
+		}
+		String lexical;
+		if (value instanceof ZonedDateTime) {
+			lexical = DateTimeFormatter.ISO_OFFSET_DATE_TIME.format((TemporalAccessor) value);
+		} else {
+			lexical = value.toString();
+		}
+		return strings.intern(lexical);
+	}
+
+	/**
+	 * Returns the xsd scalar typing the lexical form of the given value, if any.
+	 */
+	private static Scalar typeOf(Object value, Ontology ontology) {
+		String type;
+		if (value instanceof LocalDate) {
+			type = "xsd:date";
+		} else if (value instanceof LocalTime || value instanceof OffsetTime) {
+			type = "xsd:time";
+		} else if (value instanceof LocalDateTime) {
+			type = "xsd:dateTime";
+		} else if (value instanceof OffsetDateTime || value instanceof ZonedDateTime || value instanceof Instant || value instanceof Date) {
+			type = "xsd:dateTimeStamp";
+		} else {
+			return null;
+		}
+		if (ontology == null) {
+			return null;
+		}
+		var scalar = MemberCache.getMemberByAbbreviatedIri(ontology, type);
+		return (scalar instanceof Scalar) ? (Scalar) scalar : null;
+	}
+
+	/**
+	 * A weak interner: values are shared while they are in use.
+	 */
+	private static final class Interner<T> {
+		private final WeakHashMap<T, WeakReference<T>> values = new WeakHashMap<>();
+
+		synchronized T intern(T value) {
+			var reference = values.get(value);
+			var interned = (reference != null) ? reference.get() : null;
+			if (interned == null) {
+				values.put(value, new WeakReference<>(value));
+				interned = value;
+			}
+			return interned;
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+
+import io.opencaesar.oml.Import;
+import io.opencaesar.oml.Member;
+import io.opencaesar.oml.OmlPackage;
+import io.opencaesar.oml.Ontology;
+import io.opencaesar.oml.util.OmlRead;
+
+/**
+ * A resource-set-scoped cache of members looked up by abbreviated IRI.
+ *
+ * Entries are keyed by the ontology (or resource set) the lookup is done from
+ * and the abbreviated IRI. The cache is notified of the changes of the resource set's
+ * OML resources by {@link ModelChanges} and is cleared whenever they are added or
+ * removed, or an ontology's
+ * namespace, prefix or imports change, or a member is renamed. Members that were
+ * removed from their resource since they were cached are looked up again.
+ *
+ * Hits and misses are counted in the {@link ServiceMetrics}, as {@link #HIT} and
+ * {@link #MISS}, the latter with the time taken by the lookup.
+ */
+class MemberCache implements ModelChanges.Listener {
+
+	static final String HIT = "memberCache:hit";
+
+	static final String MISS = "memberCache:miss";
+
+	private final Map<Object, Map<String, Member>> members = new ConcurrentHashMap<>();
+
+	private MemberCache() {
+	}
+
+	/**
+	 * Returns the cache of the given resource set, creating it if needed.
+	 */
+	static MemberCache get(ResourceSet resourceSet) {
+		return ModelChanges.get(resourceSet, MemberCache.class, r -> new MemberCache());
+	}
+
+	/**
+	 * Returns the member with the given abbreviated IRI as seen from the given ontology.
+	 */
+	static Member getMemberByAbbreviatedIri(Ontology ontology, String abbreviatedIri) {
+		var resource = ontology.eResource();
+		if (resource == null || resource.getResourceSet() == null) {
+			return OmlRead.getMemberByAbbreviatedIri(ontology, abbreviatedIri);
+		}
+		return get(resource.getResourceSet()).lookup(ontology, abbreviatedIri);
+	}
+
+	/**
+	 * Returns the member with the given abbreviated IRI as seen from the given resource set.
+	 */
+	static Member getMemberByAbbreviatedIri(ResourceSet resourceSet, String abbreviatedIri) {
+		return get(resourceSet).lookup(resourceSet, abbreviatedIri);
+	}
+
+	private Member lookup(Object scope, String abbreviatedIri) {
+		var scoped = members.computeIfAbsent(scope, k -> new ConcurrentHashMap<>());
+		var member = scoped.get(abbreviatedIri);
+		if (member != null && member.eResource() != null) {
+			ServiceMetrics.call(HIT, scope).close();
+			return member;
+		}
+		try (var call = ServiceMetrics.call(MISS, scope)) {
+			if (scope instanceof Ontology) {
+				member = OmlRead.getMemberByAbbreviatedIri((Ontology) scope, abbreviatedIri);
+			} else {
+				member = OmlRead.getMemberByAbbreviatedIri((ResourceSet) scope, abbreviatedIri);
+			}
+			if (member != null) {
+				scoped.put(abbreviatedIri, member);
+			} else {
+				scoped.remove(abbreviatedIri);
+			}
+			return call.result(member);
+		}
+	}
+
+	@Override
+	public void notifyChanged(Notification notification) {
+		var notifier = notification.getNotifier();
+		var feature = notification.getFeature();
+		if (notifier instanceof ResourceSet ||
+			(notifier instanceof Resource && notification.getFeatureID(Resource.class) != Resource.RESOURCE__IS_MODIFIED) ||
+			notifier instanceof Import ||
+			feature == OmlPackage.Literals.ONTOLOGY__NAMESPACE ||
+			feature == OmlPackage.Literals.ONTOLOGY__PREFIX ||
+			feature == OmlPackage.Literals.ONTOLOGY__OWNED_IMPORTS ||
+			feature == OmlPackage.Literals.MEMBER__NAME) {
+			members.clear();
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Function;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+
+/**
+ * The single content adapter of a resource set that reports the changes of its OML
+ * resources to the caches kept for it ({@link MemberCache}, {@link LabelRenderer},
+ * {@link LinkIndex}, {@link ObjectiveIndex} and the refresh recorder of
+ * {@link RefreshScope}).
+ *
+ * Only OML resources are adapted, so the representation resources that Sirius updates
+ * while refreshing are neither walked nor reported, and changes of the resource set
+ * itself are only reported when they add or remove OML resources. Touch notifications
+ * are not reported. The caches are created on first use and looked up by type.
+ */
+final class ModelChanges extends EContentAdapter {
+
+	/**
+	 * A cache notified of the changes of the OML resources.
+	 */
+	interface Listener {
+		void notifyChanged(Notification notification);
+	}
+
+	private static final Listener[] NONE = new Listener[0];
+
+	// copied on write, so that changes are dispatched without holding a lock
+	private volatile Listener[] listeners = NONE;
+
+	private ModelChanges() {
+	}
+
+	/**
+	 * Returns the cache of the given type notified of the changes of the given resource
+	 * set (or resource, or root object), creating it with the given factory if needed.
+	 */
+	static <N extends Notifier, T extends Listener> T get(N target, Class<T> type, Function<N, T> factory) {
+		synchronized (target) {
+			var changes = find(target);
+			if (changes == null) {
+				changes = new ModelChanges();
+				target.eAdapters().add(changes);
+			}
+			for (var listener : changes.listeners) {
+				if (type.isInstance(listener)) {
+					return type.cast(listener);
+				}
+			}
+			var listener = factory.apply(target);
+			var copy = Arrays.copyOf(changes.listeners, changes.listeners.length + 1);
+			copy[copy.length - 1] = listener;
+			changes.listeners = copy;
+			return listener;
+		}
+	}
+
+	/**
+	 * Stops notifying the given cache, and stops adapting the target once no cache is left.
+	 */
+	static void remove(Notifier target, Listener listener) {
+		synchronized (target) {
+			var changes = find(target);
+			if (changes == null) {
+				return;
+			}
+			var copy = Arrays.stream(changes.listeners).filter(l -> l != listener).toArray(Listener[]::new);
+			changes.listeners = copy;
+			if (copy.length == 0) {
+				target.eAdapters().remove(changes);
+			}
+		}
+	}
+
+	private static ModelChanges find(Notifier target) {
+		var adapters = target.eAdapters();
+		for (int i = 0; i < adapters.size(); i++) {
+			Adapter adapter = adapters.get(i);
+			if (adapter instanceof ModelChanges) {
+				return (ModelChanges) adapter;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns whether the given resource holds OML, rather than representations.
+	 */
+	static boolean isOml(Resource resource) {
+		var extension = (resource.getURI() != null) ? resource.getURI().fileExtension() : null;
+		return "oml".equals(extension) || "omlxmi".equals(extension);
+	}
+
+	/**
+	 * Returns whether the given added or removed value (or values) is an OML resource.
+	 */
+	static boolean containsOml(Object value) {
+		if (value instanceof Collection<?>) {
+			return ((Collection<?>) value).stream().anyMatch(ModelChanges::containsOml);
+		}
+		return value instanceof Resource && isOml((Resource) value);
+	}
+
+	/**
+	 * Only adapts OML resources, leaving out the representation resources.
+	 */
+	@Override
+	protected void addAdapter(Notifier notifier) {
+		if (!(notifier instanceof Resource) || isOml((Resource) notifier)) {
+			super.addAdapter(notifier);
+		}
+	}
+
+	@Override
+	public void notifyChanged(Notification notification) {
+		super.notifyChanged(notification);
+		if (notification.isTouch()) {
+			return;
+		}
+		if (notification.getNotifier() instanceof ResourceSet && !containsOml(notification.getOldValue()) && !containsOml(notification.getNewValue())) {
+			return;
+		}
+		for (var listener : listeners) {
+			listener.notifyChanged(notification);
+		}
+	}
+}
@@ -0,0 +1,457 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.emf.transaction.util.TransactionUtil;
+
+import io.opencaesar.oml.Concept;
+import io.opencaesar.oml.ConceptInstance;
+import io.opencaesar.oml.Description;
+import io.opencaesar.oml.NamedInstance;
+import io.opencaesar.oml.OmlFactory;
+import io.opencaesar.oml.Relation;
+
+/**
+ * Imports objectives into a description from a CSV file, such as the one written for
+ * the Objectives Table by the headless model summary.
+ *
+ * The file starts with a header row naming its columns: <code>objective</code> (the
+ * objective name, required), <code>parent</code> (the name of the objective that
+ * aggregates it), <code>id</code> and <code>canonical_name</code>; other columns are
+ * ignored. Objectives are created like the Objectives Table's Create Objective tool
+ * does, and objectives that already exist are updated; an empty cell clears the value.
+ *
+ * The file is streamed in chunks of {@link #CHUNK_SIZE} rows, each applied in its own
+ * command, so memory is bounded by a chunk and a name index of the description's
+ * instances. Parents are resolved through that index; children whose parent comes
+ * later in the file are linked when the parent is read. The index and the children
+ * waiting for their parent are only updated once a chunk's command committed, so a
+ * chunk that is rolled back leaves no detached objective for later chunks to link to;
+ * its rows are counted as skipped. Progress and throughput are reported to the
+ * progress monitor after each chunk. A byte order mark, as written by spreadsheets,
+ * is ignored.
+ */
+final class ObjectiveImport extends Job {
+
+	static final int CHUNK_SIZE = 1_000;
+
+	private static final String IDENTIFIER = "base:hasIdentifier";
+
+	private static final String CANONICAL_NAME = "base:hasCanonicalName";
+
+	private final Description description;
+
+	private final Path file;
+
+	private final Map<String, NamedInstance> instances = new HashMap<>();
+
+	private final Set<NamedInstance> objectives = new HashSet<>();
+
+	private final Map<String, List<ConceptInstance>> pending = new HashMap<>();
+
+	private Concept objective;
+
+	private Relation aggregates;
+
+	ObjectiveImport(Description description, Path file) {
+		super("Importing objectives from " + file.getFileName());
+		this.description = description;
+		this.file = file;
+		setUser(true);
+	}
+
+	/**
+	 * The counts of an import.
+	 */
+	static final class Result {
+		int rows;
+		int created;
+		int updated;
+		int skipped;
+		int linked;
+		int unresolved;
+		long nanos;
+		final PropertyEdits.Summary properties = new PropertyEdits.Summary();
+
+		double getRowsPerSecond() {
+			return rows * 1e9 / Math.max(nanos, 1);
+		}
+
+		void add(Result other) {
+			rows += other.rows;
+			created += other.created;
+			updated += other.updated;
+			skipped += other.skipped;
+			linked += other.linked;
+			unresolved += other.unresolved;
+			properties.add(other.properties);
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "%d rows (%d created, %d updated, %d skipped), %d links, %d unresolved parents, properties: %s, %.0f rows/s",
+				rows, created, updated, skipped, linked, unresolved, properties, getRowsPerSecond());
+		}
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		try (var call = ServiceMetrics.call("import:objectives", description)) {
+			var result = call.result(read(monitor));
+			ViewpointLog.info("importObjectives", "Imported " + file + " into " + description.getPrefix() + ": " + result);
+			return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+		} catch (IOException | RuntimeException e) {
+			return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Can't import objectives from " + file, e);
+		}
+	}
+
+	/**
+	 * Imports the file now, in the calling thread.
+	 */
+	Result read(IProgressMonitor monitor) throws IOException {
+		var result = new Result();
+		long start = System.nanoTime();
+		indexInstances();
+		if (objective == null || aggregates == null) {
+			throw new IllegalStateException(description.getPrefix() + " doesn't use " + ObjectiveIndex.OBJECTIVE + " and " + ObjectiveIndex.AGGREGATES);
+		}
+
+		monitor.beginTask(getName(), IProgressMonitor.UNKNOWN);
+		try (var reader = new CsvReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+			var header = reader.next();
+			if (header == null) {
+				return result;
+			}
+			var columns = new Columns(header);
+			if (columns.name < 0) {
+				throw new IOException(file + " has no objective column");
+			}
+			var chunk = new ArrayList<List<String>>(CHUNK_SIZE);
+			List<String> fields;
+			while (!monitor.isCanceled() && (fields = reader.next()) != null) {
+				if (fields.size() == 1 && fields.get(0).isEmpty()) {
+					continue;
+				}
+				chunk.add(fields);
+				if (chunk.size() == CHUNK_SIZE) {
+					apply(chunk, columns, result);
+					chunk.clear();
+					report(monitor, result, start);
+				}
+			}
+			if (!chunk.isEmpty()) {
+				apply(chunk, columns, result);
+				report(monitor, result, start);
+			}
+		} finally {
+			for (var children : pending.values()) {
+				result.unresolved += children.size();
+			}
+			if (!pending.isEmpty()) {
+				ViewpointLog.warning("importObjectives", "Can't find the parent objectives " + pending.keySet() + " in " + description.getPrefix());
+			}
+			pending.clear();
+			result.nanos = System.nanoTime() - start;
+			monitor.done();
+		}
+		return result;
+	}
+
+	/**
+	 * Resolves the objective concept and aggregates relation and indexes the
+	 * description's instances, in a read-only transaction of its editing domain if it
+	 * has one.
+	 */
+	private void indexInstances() throws IOException {
+		instances.clear();
+		objectives.clear();
+		Runnable read = () -> {
+			objective = (Concept) MemberCache.getMemberByAbbreviatedIri(description, ObjectiveIndex.OBJECTIVE);
+			aggregates = (Relation) MemberCache.getMemberByAbbreviatedIri(description, ObjectiveIndex.AGGREGATES);
+			for (var statement : description.getOwnedStatements()) {
+				if (statement instanceof NamedInstance) {
+					instances.put(((NamedInstance) statement).getName(), (NamedInstance) statement);
+				}
+			}
+			objectives.addAll(Services.getObjectives(description));
+		};
+		var domain = TransactionUtil.getEditingDomain(description);
+		if (domain == null) {
+			read.run();
+			return;
+		}
+		try {
+			domain.runExclusive(read);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while reading " + description.getPrefix());
+		}
+	}
+
+	private void apply(List<List<String>> rows, Columns columns, Result result) {
+		var chunk = new Chunk();
+		var committed = PropertyEdits.execute(description, "Import Objectives", false, () -> chunk.apply(rows, columns));
+		if (committed) {
+			chunk.commit();
+			result.add(chunk.result);
+		} else {
+			result.rows += rows.size();
+			result.skipped += rows.size();
+		}
+	}
+
+	/**
+	 * The changes that a chunk makes to the name index, the children waiting for their
+	 * parent and the counts of the import, kept apart until the chunk's command commits.
+	 */
+	private final class Chunk {
+		final Map<String, NamedInstance> instances = new HashMap<>();
+		final Set<NamedInstance> objectives = new HashSet<>();
+		final Map<String, List<ConceptInstance>> pending = new HashMap<>();
+		final Set<String> adopted = new HashSet<>();
+		final Result result = new Result();
+
+		void apply(List<List<String>> rows, Columns columns) {
+			// create the new objectives first, in a single change of the description
+			var targets = new ArrayList<ConceptInstance>(rows.size());
+			var created = new ArrayList<ConceptInstance>();
+			for (var row : rows) {
+				result.rows++;
+				targets.add(resolve(columns.get(row, columns.name), created));
+			}
+			description.getOwnedStatements().addAll(created);
+
+			var edits = new PropertyEdits();
+			for (int i = 0; i < rows.size(); i++) {
+				var instance = targets.get(i);
+				if (instance == null) {
+					continue;
+				}
+				var row = rows.get(i);
+				if (columns.id >= 0) {
+					result.properties.add(edits.set(instance, IDENTIFIER, columns.get(row, columns.id)));
+				}
+				if (columns.canonicalName >= 0) {
+					result.properties.add(edits.set(instance, CANONICAL_NAME, columns.get(row, columns.canonicalName)));
+				}
+				var parent = columns.get(row, columns.parent);
+				if (parent != null && !parent.isEmpty()) {
+					var parentInstance = getInstance(parent);
+					if (parentInstance == null) {
+						pending.computeIfAbsent(parent, k -> new ArrayList<>(1)).add(instance);
+					} else if (isObjective(parentInstance)) {
+						link((ConceptInstance) parentInstance, instance, result);
+					} else {
+						result.unresolved++;
+					}
+				}
+				for (var child : adopt(instance.getName())) {
+					link(instance, child, result);
+				}
+			}
+		}
+
+		/**
+		 * Returns the objective with the given name, creating it if needed, or null if
+		 * the name is empty or taken by another instance.
+		 */
+		private ConceptInstance resolve(String name, List<ConceptInstance> created) {
+			if (name == null || name.isEmpty()) {
+				result.skipped++;
+				return null;
+			}
+			var existing = getInstance(name);
+			if (existing == null) {
+				var instance = createObjective(name);
+				instances.put(name, instance);
+				objectives.add(instance);
+				created.add(instance);
+				result.created++;
+				return instance;
+			} else if (isObjective(existing)) {
+				result.updated++;
+				return (ConceptInstance) existing;
+			}
+			ViewpointLog.warning("importObjectives", name + " is not an objective in " + description.getPrefix());
+			result.skipped++;
+			return null;
+		}
+
+		private NamedInstance getInstance(String name) {
+			var instance = instances.get(name);
+			return (instance != null) ? instance : ObjectiveImport.this.instances.get(name);
+		}
+
+		private boolean isObjective(NamedInstance instance) {
+			return objectives.contains(instance) || ObjectiveImport.this.objectives.contains(instance);
+		}
+
+		/**
+		 * Returns the children waiting for the parent with the given name, read before
+		 * or in this chunk, which stop waiting.
+		 */
+		private List<ConceptInstance> adopt(String name) {
+			var children = new ArrayList<ConceptInstance>();
+			if (adopted.add(name)) {
+				var waiting = ObjectiveImport.this.pending.get(name);
+				if (waiting != null) {
+					children.addAll(waiting);
+				}
+			}
+			var waiting = pending.remove(name);
+			if (waiting != null) {
+				children.addAll(waiting);
+			}
+			return children;
+		}
+
+		/**
+		 * Applies the changes of the chunk to the state of the import, once its command
+		 * committed.
+		 */
+		void commit() {
+			ObjectiveImport.this.instances.putAll(instances);
+			ObjectiveImport.this.objectives.addAll(objectives);
+			for (var name : adopted) {
+				ObjectiveImport.this.pending.remove(name);
+			}
+			pending.forEach((name, children) -> ObjectiveImport.this.pending.computeIfAbsent(name, k -> new ArrayList<>(children.size())).addAll(children));
+		}
+	}
+
+	private ConceptInstance createObjective(String name) {
+		var instance = OmlFactory.eINSTANCE.createConceptInstance();
+		instance.setName(name);
+		var assertion = OmlFactory.eINSTANCE.createConceptTypeAssertion();
+		assertion.setType(objective);
+		instance.getOwnedTypes().add(assertion);
+		return instance;
+	}
+
+	private void link(ConceptInstance parent, ConceptInstance child, Result result) {
+		for (var link : parent.getOwnedLinks()) {
+			if (link.getRelation() == aggregates && link.getTarget() == child) {
+				return;
+			}
+		}
+		var link = OmlFactory.eINSTANCE.createLinkAssertion();
+		link.setRelation(aggregates);
+		link.setTarget(child);
+		parent.getOwnedLinks().add(link);
+		result.linked++;
+	}
+
+	private static void report(IProgressMonitor monitor, Result result, long start) {
+		result.nanos = System.nanoTime() - start;
+		monitor.subTask(String.format(Locale.ROOT, "%,d objectives imported (%,.0f rows/s)", result.rows, result.getRowsPerSecond()));
+		monitor.worked(1);
+	}
+
+	/**
+	 * The positions of the known columns in the header row, -1 when absent.
+	 */
+	private static final class Columns {
+		final int name;
+		final int parent;
+		final int id;
+		final int canonicalName;
+
+		Columns(List<String> header) {
+			var names = new ArrayList<String>(header.size());
+			for (var column : header) {
+				names.add(column.trim().toLowerCase(Locale.ROOT));
+			}
+			name = names.indexOf("objective");
+			parent = names.indexOf("parent");
+			id = names.indexOf("id");
+			canonicalName = names.indexOf("canonical_name");
+		}
+
+		String get(List<String> row, int column) {
+			return (column >= 0 && column < row.size()) ? row.get(column).trim() : null;
+		}
+	}
+
+	/**
+	 * Reads RFC 4180 records one at a time, skipping a leading byte order mark.
+	 */
+	private static final class CsvReader implements Closeable {
+		private static final char BYTE_ORDER_MARK = '\uFEFF';
+		private final Reader reader;
+		private final StringBuilder field = new StringBuilder();
+		private boolean started;
+
+		CsvReader(Reader reader) {
+			this.reader = reader;
+		}
+
+		/**
+		 * Returns the fields of the next record, or null at the end of the input.
+		 */
+		List<String> next() throws IOException {
+			int c = reader.read();
+			if (!started) {
+				started = true;
+				if (c == BYTE_ORDER_MARK) {
+					c = reader.read();
+				}
+			}
+			if (c < 0) {
+				return null;
+			}
+			var fields = new ArrayList<String>();
+			var quoted = false;
+			field.setLength(0);
+			while (true) {
+				if (quoted) {
+					if (c < 0) {
+						break;
+					} else if (c == '"') {
+						c = reader.read();
+						if (c != '"') {
+							quoted = false;
+							continue;
+						}
+						field.append('"');
+					} else {
+						field.append((char) c);
+					}
+				} else if (c < 0 || c == '\n') {
+					break;
+				} else if (c == '"') {
+					quoted = true;
+				} else if (c == ',') {
+					fields.add(field.toString());
+					field.setLength(0);
+				} else if (c != '\r') {
+					field.append((char) c);
+				}
+				c = reader.read();
+			}
+			fields.add(field.toString());
+			return fields;
+		}
+
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
+	}
+}
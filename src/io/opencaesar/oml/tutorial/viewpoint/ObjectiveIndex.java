@@ -0,0 +1,314 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+
+import io.opencaesar.oml.ConceptInstance;
+import io.opencaesar.oml.ConceptTypeAssertion;
+import io.opencaesar.oml.Description;
+import io.opencaesar.oml.LinkAssertion;
+import io.opencaesar.oml.NamedInstance;
+import io.opencaesar.oml.OmlPackage;
+import io.opencaesar.oml.Relation;
+import io.opencaesar.oml.util.OmlSearch;
+
+/**
+ * A name-sorted index of the objectives and their aggregated objectives in a
+ * resource set, used to page through the rows of the Objectives Table.
+ *
+ * The index is notified of the changes of the resource set's OML resources by
+ * {@link ModelChanges}.
+ * Sorted lists are computed on first use and dropped on the changes that can affect
+ * them: resources added, removed or reloaded, statements added or removed, a rename,
+ * a type assertion change or a <code>base:aggregates</code> link change. Other changes,
+ * such as property values or the representations that Sirius updates while refreshing
+ * the table, keep them, so each list is sorted at most once per refresh.
+ *
+ * The base:aggregates hierarchy is explored depth first, once per node. Links
+ * that close a cycle (back edges) are left out of a node's children, so that the
+ * recursive Aggregated Objective sub-line always terminates, and the height and
+ * fan-out of every explored node are recorded for statistics.
+ */
+class ObjectiveIndex implements ModelChanges.Listener {
+
+	static final String OBJECTIVE = "mission:Objective";
+
+	static final String AGGREGATES = "base:aggregates";
+
+	static final Comparator<NamedInstance> BY_NAME = Comparator.comparing(NamedInstance::getName, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+	private final ResourceSet resourceSet;
+
+	private final Map<Description, List<ConceptInstance>> roots = new HashMap<>();
+
+	private final Map<Description, List<ConceptInstance>> objectives = new HashMap<>();
+
+	private final Map<NamedInstance, Node> nodes = new HashMap<>();
+
+	private final Map<NamedInstance, Set<ConceptInstance>> closures = new HashMap<>();
+
+	private final Map<Description, Statistics> statistics = new HashMap<>();
+
+	private ObjectiveIndex(ResourceSet resourceSet) {
+		this.resourceSet = resourceSet;
+	}
+
+	/**
+	 * Returns the index attached to the given resource set, attaching a new one if needed.
+	 */
+	static ObjectiveIndex get(ResourceSet resourceSet) {
+		return ModelChanges.get(resourceSet, ObjectiveIndex.class, ObjectiveIndex::new);
+	}
+
+	/**
+	 * Returns the objectives of the given description that no other objective aggregates, sorted by name.
+	 */
+	synchronized List<ConceptInstance> getRoots(Description description) {
+		var result = roots.get(description);
+		if (result == null) {
+			var aggregates = getAggregates();
+			var links = LinkIndex.get(resourceSet);
+			var list = new ArrayList<ConceptInstance>();
+			for (var instance : OmlSearch.findNamedInstancesWithAbbreviatedTypeIri(description, OBJECTIVE)) {
+				if (instance instanceof ConceptInstance && !links.hasSources(aggregates, instance)) {
+					list.add((ConceptInstance) instance);
+				}
+			}
+			list.sort(BY_NAME);
+			result = Collections.unmodifiableList(list);
+			roots.put(description, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns all the objectives of the given description, sorted by name.
+	 */
+	synchronized List<ConceptInstance> getObjectives(Description description) {
+		var result = objectives.get(description);
+		if (result == null) {
+			var list = new ArrayList<ConceptInstance>();
+			for (var instance : OmlSearch.findNamedInstancesWithAbbreviatedTypeIri(description, OBJECTIVE)) {
+				if (instance instanceof ConceptInstance) {
+					list.add((ConceptInstance) instance);
+				}
+			}
+			list.sort(BY_NAME);
+			result = Collections.unmodifiableList(list);
+			objectives.put(description, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the objectives aggregated by the given objective, sorted by name,
+	 * leaving out those that would close an aggregation cycle.
+	 */
+	synchronized List<ConceptInstance> getChildren(NamedInstance objective) {
+		return getNode(objective).children;
+	}
+
+	/**
+	 * Returns the transitive closure of the objectives aggregated by the given objective.
+	 */
+	synchronized Set<ConceptInstance> getClosure(NamedInstance objective) {
+		var result = closures.get(objective);
+		if (result == null) {
+			var closure = new LinkedHashSet<ConceptInstance>();
+			var queue = new ArrayDeque<ConceptInstance>(getChildren(objective));
+			while (!queue.isEmpty()) {
+				var child = queue.poll();
+				if (closure.add(child)) {
+					queue.addAll(getChildren(child));
+				}
+			}
+			result = Collections.unmodifiableSet(closure);
+			closures.put(objective, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the statistics of the aggregation hierarchy of the given description's objectives.
+	 */
+	synchronized Statistics getStatistics(Description description) {
+		var result = statistics.get(description);
+		if (result == null) {
+			result = new Statistics();
+			for (var objective : getObjectives(description)) {
+				var node = getNode(objective);
+				result.objectives++;
+				result.links += node.children.size();
+				result.cycles += node.backEdges;
+				result.maxDepth = Math.max(result.maxDepth, node.height);
+				result.maxFanOut = Math.max(result.maxFanOut, node.children.size());
+			}
+			result.roots = getRoots(description).size();
+			statistics.put(description, result);
+		}
+		return result;
+	}
+
+	private Node getNode(NamedInstance objective) {
+		var node = nodes.get(objective);
+		if (node == null) {
+			explore(objective);
+			node = nodes.get(objective);
+		}
+		return node;
+	}
+
+	/**
+	 * Explores the hierarchy below the given objective depth first, without recursion,
+	 * recording a node for every objective that was not explored before.
+	 */
+	private void explore(NamedInstance start) {
+		var aggregates = getAggregates();
+		var links = LinkIndex.get(resourceSet);
+		var onStack = new HashSet<NamedInstance>();
+		var stack = new ArrayDeque<Frame>();
+		stack.push(new Frame(start, links.getTargets(start, aggregates)));
+		onStack.add(start);
+		while (!stack.isEmpty()) {
+			var frame = stack.peek();
+			if (frame.next < frame.targets.size()) {
+				var target = frame.targets.get(frame.next++);
+				if (onStack.contains(target)) {
+					frame.node.backEdges++;
+				} else {
+					frame.node.children.add(target);
+					if (!nodes.containsKey(target)) {
+						stack.push(new Frame(target, links.getTargets(target, aggregates)));
+						onStack.add(target);
+					}
+				}
+			} else {
+				stack.pop();
+				onStack.remove(frame.instance);
+				var node = frame.node;
+				for (var child : node.children) {
+					node.height = Math.max(node.height, nodes.get(child).height + 1);
+				}
+				node.children = Collections.unmodifiableList(node.children);
+				nodes.put(frame.instance, node);
+			}
+		}
+	}
+
+	private Relation getAggregates() {
+		return (Relation) MemberCache.getMemberByAbbreviatedIri(resourceSet, AGGREGATES);
+	}
+
+	@Override
+	public void notifyChanged(Notification notification) {
+		if (!affects(notification)) {
+			return;
+		}
+		synchronized (this) {
+			roots.clear();
+			objectives.clear();
+			nodes.clear();
+			closures.clear();
+			statistics.clear();
+		}
+	}
+
+	/**
+	 * Returns whether the given change can affect the objectives, their names or their
+	 * aggregations.
+	 */
+	private boolean affects(Notification notification) {
+		var notifier = notification.getNotifier();
+		if (notifier instanceof ResourceSet) {
+			return true;
+		}
+		if (notifier instanceof Resource) {
+			var feature = notification.getFeatureID(Resource.class);
+			return feature == Resource.RESOURCE__CONTENTS || feature == Resource.RESOURCE__IS_LOADED;
+		}
+		var feature = notification.getFeature();
+		if (feature == OmlPackage.Literals.MEMBER__NAME || feature == OmlPackage.Literals.DESCRIPTION__OWNED_STATEMENTS || notifier instanceof ConceptTypeAssertion) {
+			return true;
+		}
+		if (notifier instanceof LinkAssertion) {
+			var aggregates = getAggregates();
+			return ((LinkAssertion) notifier).getRelation() == aggregates || notification.getOldValue() == aggregates;
+		}
+		return isAggregation(notification.getOldValue()) || isAggregation(notification.getNewValue());
+	}
+
+	/**
+	 * Returns whether the given added or removed value (or values) is a type assertion
+	 * or a <code>base:aggregates</code> link.
+	 */
+	private boolean isAggregation(Object value) {
+		if (value instanceof Collection<?>) {
+			return ((Collection<?>) value).stream().anyMatch(this::isAggregation);
+		}
+		return value instanceof ConceptTypeAssertion
+			|| (value instanceof LinkAssertion && ((LinkAssertion) value).getRelation() == getAggregates());
+	}
+
+	/**
+	 * Returns the window [offset, offset + limit) of the given list.
+	 */
+	static <T> List<T> window(List<T> list, int offset, int limit) {
+		int from = Math.min(Math.max(offset, 0), list.size());
+		int to = from + Math.min(Math.max(limit, 0), list.size() - from);
+		return list.subList(from, to);
+	}
+
+	/**
+	 * An explored objective in the aggregation hierarchy.
+	 */
+	private static class Node {
+		List<ConceptInstance> children = new ArrayList<>();
+		int height;
+		int backEdges;
+	}
+
+	/**
+	 * An objective being explored, with its sorted targets and the index of the next one to visit.
+	 */
+	private static class Frame {
+		final NamedInstance instance;
+		final List<ConceptInstance> targets = new ArrayList<>();
+		final Node node = new Node();
+		int next;
+
+		Frame(NamedInstance instance, List<NamedInstance> targets) {
+			this.instance = instance;
+			for (var target : targets) {
+				if (target instanceof ConceptInstance) {
+					this.targets.add((ConceptInstance) target);
+				}
+			}
+			this.targets.sort(BY_NAME);
+		}
+	}
+
+	/**
+	 * Statistics of the aggregation hierarchy of a description's objectives.
+	 */
+	static class Statistics {
+		int objectives;
+		int roots;
+		int links;
+		int cycles;
+		int maxDepth;
+		int maxFanOut;
+	}
+}
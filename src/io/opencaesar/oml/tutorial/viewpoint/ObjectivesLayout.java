@@ -0,0 +1,253 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.transaction.RecordingCommand;
+import org.eclipse.emf.transaction.util.TransactionUtil;
+import org.eclipse.gmf.runtime.notation.Bounds;
+import org.eclipse.gmf.runtime.notation.Diagram;
+import org.eclipse.gmf.runtime.notation.Location;
+import org.eclipse.gmf.runtime.notation.Node;
+import org.eclipse.gmf.runtime.notation.NotationFactory;
+import org.eclipse.sirius.viewpoint.DRepresentation;
+import org.eclipse.sirius.viewpoint.DSemanticDecorator;
+import org.eclipse.sirius.viewpoint.description.AnnotationEntry;
+
+import io.opencaesar.oml.ConceptInstance;
+
+/**
+ * Lays out the nodes of an Objectives Diagram in the background, as layers of the
+ * <code>base:aggregates</code> hierarchy (see {@link LayeredLayout}).
+ *
+ * The nodes placed by a layout are marked, and keep their position afterwards, however
+ * they are moved: only the unmarked nodes, such as those of newly created objectives,
+ * are placed, around the others. The first layout of a diagram adopts the position of
+ * every node that has one (that is, not at the origin, where views created without a
+ * location are put), so a diagram arranged by hand is kept as it is. Only a relayout,
+ * requested explicitly, moves every node.
+ *
+ * The diagram is read in a read-only transaction, laid out outside of any transaction,
+ * and the new positions are applied in a single undoable command; nodes moved or
+ * removed in the meantime are left alone. Requests arriving in quick succession are
+ * coalesced into one run after {@link #DELAY_MILLIS}.
+ */
+final class ObjectivesLayout extends Job {
+
+	static final long DELAY_MILLIS = 300;
+
+	static final String PLACED = Activator.PLUGIN_ID + "/layout";
+
+	private static final String GMF_DIAGRAMS = "GMF_DIAGRAMS";
+
+	private static final int DEFAULT_SIZE = 90;
+
+	private static final Map<DRepresentation, ObjectivesLayout> layouts = new WeakHashMap<>();
+
+	private final WeakReference<DRepresentation> representation;
+
+	private boolean relayout;
+
+	private final Set<EObject> created = new HashSet<>();
+
+	private ObjectivesLayout(DRepresentation representation) {
+		super("Laying out " + representation.getName());
+		this.representation = new WeakReference<>(representation);
+		setSystem(true);
+	}
+
+	/**
+	 * Places the unmarked nodes of the given diagram, and the nodes of the given newly
+	 * created objectives wherever they are; on a relayout, places all the nodes.
+	 */
+	static void schedule(DRepresentation representation, boolean relayout, Collection<? extends EObject> created) {
+		ObjectivesLayout layout;
+		synchronized (layouts) {
+			layout = layouts.computeIfAbsent(representation, ObjectivesLayout::new);
+		}
+		synchronized (layout) {
+			layout.relayout |= relayout;
+			layout.created.addAll(created);
+		}
+		layout.schedule(DELAY_MILLIS);
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		boolean relayout;
+		Set<EObject> created;
+		synchronized (this) {
+			relayout = this.relayout;
+			created = new HashSet<>(this.created);
+			this.relayout = false;
+			this.created.clear();
+		}
+		var representation = this.representation.get();
+		var domain = (representation != null) ? TransactionUtil.getEditingDomain(representation) : null;
+		if (domain == null) {
+			return Status.OK_STATUS;
+		}
+		try (var call = ServiceMetrics.call("layoutObjectives", representation)) {
+			var snapshot = new Snapshot[1];
+			domain.runExclusive(() -> snapshot[0] = Snapshot.of(getDiagram(representation)));
+			if (snapshot[0] == null || monitor.isCanceled()) {
+				return Status.OK_STATUS;
+			}
+			var layout = snapshot[0].layout(relayout, created);
+			if (!monitor.isCanceled()) {
+				domain.getCommandStack().execute(new RecordingCommand(domain, relayout ? "Relayout Objectives" : "Layout Objectives") {
+					@Override
+					protected void doExecute() {
+						snapshot[0].apply(layout);
+					}
+				});
+			}
+			call.result(snapshot[0].nodes);
+			return Status.OK_STATUS;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return Status.CANCEL_STATUS;
+		} catch (RuntimeException e) {
+			return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Can't lay out " + representation.getName(), e);
+		}
+	}
+
+	/**
+	 * Returns the GMF diagram of the given representation, or null if it has none yet.
+	 */
+	private static Diagram getDiagram(DRepresentation representation) {
+		for (AnnotationEntry entry : representation.getOwnedAnnotationEntries()) {
+			if (GMF_DIAGRAMS.equals(entry.getSource()) && entry.getData() instanceof Diagram) {
+				return (Diagram) entry.getData();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The objective nodes of a diagram, their bounds and aggregations, as read in a
+	 * read-only transaction.
+	 */
+	private static final class Snapshot {
+		final List<Node> nodes = new ArrayList<>();
+		final List<EObject> targets = new ArrayList<>();
+		final List<int[]> edges = new ArrayList<>();
+		int[] x;
+		int[] y;
+		int[] width;
+		int[] height;
+		boolean[] positioned;
+		boolean[] marked;
+		boolean placed;
+
+		static Snapshot of(Diagram diagram) {
+			if (diagram == null) {
+				return null;
+			}
+			var snapshot = new Snapshot();
+			var indices = new IdentityHashMap<ConceptInstance, Integer>();
+			for (var child : diagram.getChildren()) {
+				if (child instanceof Node && child.getElement() instanceof DSemanticDecorator) {
+					var target = ((DSemanticDecorator) child.getElement()).getTarget();
+					if (target instanceof ConceptInstance && !indices.containsKey(target)) {
+						indices.put((ConceptInstance) target, snapshot.nodes.size());
+						snapshot.nodes.add((Node) child);
+						snapshot.targets.add(target);
+					}
+				}
+			}
+			int size = snapshot.nodes.size();
+			snapshot.x = new int[size];
+			snapshot.y = new int[size];
+			snapshot.width = new int[size];
+			snapshot.height = new int[size];
+			snapshot.positioned = new boolean[size];
+			snapshot.marked = new boolean[size];
+			for (var entry : indices.entrySet()) {
+				int index = entry.getValue();
+				var node = snapshot.nodes.get(index);
+				var constraint = node.getLayoutConstraint();
+				if (constraint instanceof Location) {
+					snapshot.x[index] = ((Location) constraint).getX();
+					snapshot.y[index] = ((Location) constraint).getY();
+					snapshot.positioned[index] = snapshot.x[index] != 0 || snapshot.y[index] != 0;
+				}
+				var bounds = (constraint instanceof Bounds) ? (Bounds) constraint : null;
+				snapshot.width[index] = (bounds != null && bounds.getWidth() > 0) ? bounds.getWidth() : DEFAULT_SIZE;
+				snapshot.height[index] = (bounds != null && bounds.getHeight() > 0) ? bounds.getHeight() : DEFAULT_SIZE;
+				snapshot.marked[index] = node.getEAnnotation(PLACED) != null;
+				snapshot.placed |= snapshot.marked[index];
+				for (var child : Services.getAggregatedObjectives(entry.getKey())) {
+					var target = indices.get(child);
+					if (target != null) {
+						snapshot.edges.add(new int[] { index, target });
+					}
+				}
+			}
+			return snapshot;
+		}
+
+		/**
+		 * Lays out the nodes, keeping in place the marked ones, or on the first layout the
+		 * ones that have a position, except the nodes of the given created objectives.
+		 */
+		LayeredLayout layout(boolean relayout, Set<EObject> created) {
+			var layout = new LayeredLayout(nodes.size(), DEFAULT_SIZE, DEFAULT_SIZE);
+			for (int node = 0; node < nodes.size(); node++) {
+				layout.setSize(node, width[node], height[node]);
+				var kept = placed ? marked[node] : positioned[node];
+				if (!relayout && kept && !created.contains(targets.get(node))) {
+					layout.fix(node, x[node], y[node]);
+				}
+			}
+			for (var edge : edges) {
+				layout.addEdge(edge[0], edge[1]);
+			}
+			layout.run();
+			return layout;
+		}
+
+		/**
+		 * Moves the nodes placed by the given layout, unless they were removed or moved
+		 * since the snapshot, and marks all the nodes as placed.
+		 */
+		void apply(LayeredLayout layout) {
+			for (int index = 0; index < nodes.size(); index++) {
+				var node = nodes.get(index);
+				if (node.eContainer() == null) {
+					continue;
+				}
+				if (!layout.isFixed(index)) {
+					var constraint = node.getLayoutConstraint();
+					if (constraint == null) {
+						constraint = NotationFactory.eINSTANCE.createBounds();
+						node.setLayoutConstraint(constraint);
+					} else if (!(constraint instanceof Location)
+							|| ((Location) constraint).getX() != x[index] || ((Location) constraint).getY() != y[index]) {
+						continue;
+					}
+					((Location) constraint).setX(layout.getX(index));
+					((Location) constraint).setY(layout.getY(index));
+				}
+				if (node.getEAnnotation(PLACED) == null) {
+					var annotation = EcoreFactory.eINSTANCE.createEAnnotation();
+					annotation.setSource(PLACED);
+					node.getEAnnotations().add(annotation);
+				}
+			}
+		}
+	}
+}
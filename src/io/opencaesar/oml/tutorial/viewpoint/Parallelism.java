@@ -0,0 +1,153 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Opt-in fork-join evaluation of the visualization sets of very large ontologies.
+ *
+ * Parallel mode is enabled with the <code>io.opencaesar.oml.tutorial.viewpoint.parallel</code>
+ * system property and only kicks in for ontologies with at least
+ * <code>io.opencaesar.oml.tutorial.viewpoint.parallel.threshold</code> statements
+ * (100,000 by default); below that, the sequential path is faster.
+ *
+ * Statements are split into chunks classified in the common fork-join pool and the
+ * chunk results are returned in statement order, so callers merge them into the same
+ * ordered sets as the sequential path. EMF resolves proxies and creates feature lists
+ * lazily, which is not safe from multiple threads, so the proxies of the ontology's
+ * resource are resolved up front, before any chunk runs. That is done once per load of
+ * the resource (or replacement of its contents), not on every classification: proxies
+ * resolved once stay resolved, and elements added by edits reference loaded objects.
+ * Chunks must only read objects of that resource: anything in other resources, whose
+ * proxies aren't resolved, is read by the caller when merging the chunk results.
+ */
+final class Parallelism {
+
+	static final boolean ENABLED = Boolean.getBoolean("io.opencaesar.oml.tutorial.viewpoint.parallel");
+
+	static final int THRESHOLD = Integer.getInteger("io.opencaesar.oml.tutorial.viewpoint.parallel.threshold", 100_000);
+
+	private static final int MIN_CHUNK = 1_024;
+
+	private Parallelism() {
+	}
+
+	/**
+	 * Returns whether the given number of statements is worth classifying in parallel.
+	 */
+	static boolean isParallel(int size) {
+		return ENABLED && size >= THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1;
+	}
+
+	/**
+	 * Makes the given ontology safe to read from multiple threads by resolving the
+	 * proxies of its resource, unless they were resolved since it was loaded.
+	 */
+	static void prepare(EObject ontology) {
+		var resource = ontology.eResource();
+		if (resource == null) {
+			EcoreUtil.resolveAll(ontology);
+		} else if (Resolved.mark(resource)) {
+			EcoreUtil.resolveAll(resource);
+		}
+	}
+
+	/**
+	 * Marks a resource whose proxies were resolved, until it is unloaded or its contents
+	 * are replaced.
+	 */
+	private static final class Resolved extends AdapterImpl {
+
+		/**
+		 * Marks the given resource, and returns whether it wasn't marked already.
+		 */
+		static boolean mark(Resource resource) {
+			synchronized (resource) {
+				for (var adapter : resource.eAdapters()) {
+					if (adapter instanceof Resolved) {
+						return false;
+					}
+				}
+				resource.eAdapters().add(new Resolved());
+				return true;
+			}
+		}
+
+		@Override
+		public void notifyChanged(Notification notification) {
+			var feature = notification.getFeatureID(Resource.class);
+			if (notification.getNotifier() == target && !notification.isTouch()
+					&& (feature == Resource.RESOURCE__IS_LOADED || feature == Resource.RESOURCE__CONTENTS)) {
+				var resource = (Resource) target;
+				synchronized (resource) {
+					resource.eAdapters().remove(this);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Applies the given function to consecutive chunks of the given list in parallel,
+	 * and returns the results in chunk order.
+	 */
+	static <T, R> List<R> mapChunks(List<T> list, Function<List<T>, R> function) {
+		if (list.isEmpty()) {
+			return Collections.emptyList();
+		}
+		int parallelism = ForkJoinPool.getCommonPoolParallelism();
+		int chunk = Math.max(MIN_CHUNK, list.size() / (parallelism * 4) + 1);
+		int chunks = (list.size() + chunk - 1) / chunk;
+		var results = new Object[chunks];
+		// copy once so that chunks are cheap, random access views
+		var items = new ArrayList<>(list);
+		ForkJoinPool.commonPool().invoke(new Chunks<>(items, function, results, chunk, 0, chunks));
+		@SuppressWarnings("unchecked")
+		var mapped = (List<R>) Arrays.asList(results);
+		return mapped;
+	}
+
+	/**
+	 * A range of chunks, split in halves until a single chunk is left.
+	 */
+	private static final class Chunks<T, R> extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final List<T> items;
+		private final Function<List<T>, R> function;
+		private final Object[] results;
+		private final int chunk;
+		private final int from;
+		private final int to;
+
+		Chunks(List<T> items, Function<List<T>, R> function, Object[] results, int chunk, int from, int to) {
+			this.items = items;
+			this.function = function;
+			this.results = results;
+			this.chunk = chunk;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				int start = from * chunk;
+				results[from] = function.apply(items.subList(start, Math.min(start + chunk, items.size())));
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Chunks<>(items, function, results, chunk, from, middle),
+						new Chunks<>(items, function, results, chunk, middle, to));
+			}
+		}
+	}
+}
@@ -0,0 +1,202 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.transaction.NotificationFilter;
+import org.eclipse.emf.transaction.ResourceSetChangeEvent;
+import org.eclipse.emf.transaction.ResourceSetListenerImpl;
+import org.eclipse.emf.transaction.TransactionalEditingDomain;
+import org.eclipse.emf.transaction.util.TransactionUtil;
+
+import io.opencaesar.oml.Description;
+import io.opencaesar.oml.Ontology;
+import io.opencaesar.oml.Vocabulary;
+
+/**
+ * Precomputes the visualization sets of the displayed ontologies off the UI thread.
+ *
+ * An ontology is tracked once a representation asks for its visualization sets. After
+ * each transaction committed on its editing domain, the sets of the tracked ontologies
+ * are recomputed in the background, in a read-only transaction, so that the Sirius
+ * refresh finds them ready in the indexes. Edits arriving in quick succession are
+ * coalesced: a run waits {@link #DELAY_MILLIS} and gives up as soon as a newer edit
+ * arrives. Only transactions that change OML resources trigger a run, not those that
+ * only change representations. Runs share a single bounded worker, created when the
+ * plugin starts and stopped when it stops.
+ */
+final class Precomputation extends ResourceSetListenerImpl {
+
+	static final long DELAY_MILLIS = 200;
+
+	private static final int QUEUE_SIZE = 8;
+
+	private static final NotificationFilter OML_CHANGES = NotificationFilter.NOT_TOUCH.and(new NotificationFilter.Custom() {
+		@Override
+		public boolean matches(Notification notification) {
+			var notifier = notification.getNotifier();
+			if (notifier instanceof EObject) {
+				var resource = ((EObject) notifier).eResource();
+				return resource != null && ModelChanges.isOml(resource);
+			} else if (notifier instanceof Resource) {
+				return ModelChanges.isOml((Resource) notifier);
+			}
+			return ModelChanges.containsOml(notification.getOldValue()) || ModelChanges.containsOml(notification.getNewValue());
+		}
+	});
+
+	private static volatile ThreadPoolExecutor executor;
+
+	private static final Map<TransactionalEditingDomain, Precomputation> precomputations = new WeakHashMap<>();
+
+	private final WeakReference<TransactionalEditingDomain> domain;
+
+	private final Set<Ontology> ontologies = Collections.newSetFromMap(new WeakHashMap<>());
+
+	private final AtomicLong generation = new AtomicLong();
+
+	private Future<?> pending;
+
+	private Precomputation(TransactionalEditingDomain domain) {
+		super(OML_CHANGES);
+		this.domain = new WeakReference<>(domain);
+	}
+
+	private static ThreadPoolExecutor createExecutor() {
+		var executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE), r -> {
+			var thread = new Thread(r, "oml-tutorial-viewpoint precomputation");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		}, new ThreadPoolExecutor.DiscardOldestPolicy());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Tracks the given ontology, whose visualization sets are being displayed.
+	 */
+	static void track(Ontology ontology) {
+		var domain = TransactionUtil.getEditingDomain(ontology);
+		if (domain == null || executor == null) {
+			return;
+		}
+		Precomputation precomputation;
+		synchronized (precomputations) {
+			precomputation = precomputations.get(domain);
+			if (precomputation == null) {
+				precomputation = new Precomputation(domain);
+				precomputations.put(domain, precomputation);
+				domain.addResourceSetListener(precomputation);
+			}
+		}
+		synchronized (precomputation.ontologies) {
+			precomputation.ontologies.add(ontology);
+		}
+	}
+
+	/**
+	 * Starts the background worker.
+	 */
+	static void install() {
+		synchronized (precomputations) {
+			if (executor == null) {
+				executor = createExecutor();
+			}
+		}
+	}
+
+	/**
+	 * Stops the background work.
+	 */
+	static void shutdown() {
+		synchronized (precomputations) {
+			precomputations.forEach((domain, precomputation) -> domain.removeResourceSetListener(precomputation));
+			precomputations.clear();
+			if (executor != null) {
+				executor.shutdownNow();
+				executor = null;
+			}
+		}
+	}
+
+	@Override
+	public boolean isPostcommitOnly() {
+		return true;
+	}
+
+	@Override
+	public void resourceSetChanged(ResourceSetChangeEvent event) {
+		schedule();
+	}
+
+	private synchronized void schedule() {
+		var current = generation.incrementAndGet();
+		if (pending != null) {
+			pending.cancel(false);
+		}
+		var executor = Precomputation.executor;
+		if (executor != null && !executor.isShutdown()) {
+			pending = executor.submit(() -> run(current));
+		}
+	}
+
+	private void run(long current) {
+		try {
+			Thread.sleep(DELAY_MILLIS);
+			var domain = this.domain.get();
+			if (domain == null || isStale(current)) {
+				return;
+			}
+			domain.runExclusive(() -> {
+				ArrayList<Ontology> tracked;
+				synchronized (ontologies) {
+					tracked = new ArrayList<>(ontologies);
+				}
+				for (var ontology : tracked) {
+					if (isStale(current)) {
+						return;
+					}
+					if (ontology.eResource() != null) {
+						precompute(ontology);
+					}
+				}
+			});
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (RuntimeException e) {
+			ViewpointLog.error("precomputation", "Can't precompute the visualization sets", e);
+		}
+	}
+
+	private boolean isStale(long current) {
+		return generation.get() != current || Thread.currentThread().isInterrupted();
+	}
+
+	private static void precompute(Ontology ontology) {
+		try (var call = ServiceMetrics.call("precompute", ontology)) {
+			if (ontology instanceof Vocabulary) {
+				var index = VocabularyIndex.get((Vocabulary) ontology);
+				index.getVisualizedEntities();
+				index.getVisualizedRestrictions();
+				call.result(index.getVisualizedNamedInstances());
+			} else if (ontology instanceof Description) {
+				var index = DescriptionIndex.get((Description) ontology);
+				index.getVisualizedNamedInstances();
+				call.result(index.getVisualizedLinks());
+			}
+		}
+	}
+}
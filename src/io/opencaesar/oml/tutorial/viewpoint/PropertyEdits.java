@@ -0,0 +1,245 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.transaction.RecordingCommand;
+import org.eclipse.emf.transaction.RollbackException;
+import org.eclipse.emf.transaction.TransactionalCommandStack;
+import org.eclipse.emf.transaction.util.TransactionUtil;
+
+import io.opencaesar.oml.AnnotatedElement;
+import io.opencaesar.oml.AnnotationProperty;
+import io.opencaesar.oml.Member;
+import io.opencaesar.oml.NamedInstance;
+import io.opencaesar.oml.NamedInstanceReference;
+import io.opencaesar.oml.OmlFactory;
+import io.opencaesar.oml.Ontology;
+import io.opencaesar.oml.PropertyValueAssertion;
+import io.opencaesar.oml.ScalarProperty;
+import io.opencaesar.oml.ScalarPropertyValueAssertion;
+
+/**
+ * Sets annotation and scalar property values by abbreviated property IRI.
+ *
+ * A batch of edits resolves each property once per ontology and runs in a single
+ * command, so listeners such as the Sirius refresh see one change event for the whole
+ * batch: the command of the caller when it says it runs in one (as Sirius tools do),
+ * or else a recording command of the elements' editing domain. Edits that would not
+ * change the value are skipped.
+ */
+class PropertyEdits {
+
+	/**
+	 * The outcome of an edit.
+	 */
+	enum Outcome {
+		SET, CLEARED, UNCHANGED, FAILED
+	}
+
+	/**
+	 * The counts of edit outcomes of a batch.
+	 */
+	static final class Summary {
+		int set;
+		int cleared;
+		int unchanged;
+		int failed;
+
+		void add(Summary other) {
+			set += other.set;
+			cleared += other.cleared;
+			unchanged += other.unchanged;
+			failed += other.failed;
+		}
+
+		void add(Outcome outcome) {
+			switch (outcome) {
+				case SET: set++; break;
+				case CLEARED: cleared++; break;
+				case UNCHANGED: unchanged++; break;
+				case FAILED: failed++; break;
+			}
+		}
+
+		int getChanged() {
+			return set + cleared;
+		}
+
+		@Override
+		public String toString() {
+			return set + " set, " + cleared + " cleared, " + unchanged + " unchanged, " + failed + " failed";
+		}
+	}
+
+	private static final LiteralFactory LITERALS = LiteralFactory.INSTANCE;
+
+	private final Map<Ontology, Map<String, Member>> properties = new HashMap<>();
+
+	/**
+	 * Applies the given edits, given as property values by abbreviated property IRI
+	 * per element, in a single command, which is the caller's one if it runs in a command.
+	 */
+	static Summary apply(Map<? extends AnnotatedElement, ? extends Map<String, ?>> edits, boolean inCommand) {
+		var summary = new Summary();
+		if (edits.isEmpty()) {
+			return summary;
+		}
+		var batch = new PropertyEdits();
+		var element = edits.keySet().iterator().next();
+		execute(element, "Set Properties", inCommand, () -> edits.forEach((e, values) ->
+			values.forEach((iri, value) -> summary.add(batch.set(e, iri, value)))));
+		return summary;
+	}
+
+	/**
+	 * Sets the given property of each element to the value at the same position, in a
+	 * single command, which is the caller's one if it runs in a command.
+	 */
+	static Summary apply(List<? extends AnnotatedElement> elements, String abbreviatedPropertyIri, List<?> values, boolean inCommand) {
+		var summary = new Summary();
+		if (elements.isEmpty()) {
+			return summary;
+		}
+		var batch = new PropertyEdits();
+		execute(elements.get(0), "Set " + abbreviatedPropertyIri, inCommand, () -> {
+			for (int i = 0; i < elements.size(); i++) {
+				var value = (i < values.size()) ? values.get(i) : null;
+				summary.add(batch.set(elements.get(i), abbreviatedPropertyIri, value));
+			}
+		});
+		return summary;
+	}
+
+	/**
+	 * Runs the given edits in a recording command of the given element's editing domain,
+	 * or directly when the caller already runs in a command or there is no domain, and
+	 * returns whether they were applied: false if the command was rolled back.
+	 */
+	static boolean execute(AnnotatedElement element, String label, boolean inCommand, Runnable edits) {
+		var domain = inCommand ? null : TransactionUtil.getEditingDomain(element);
+		if (domain == null) {
+			edits.run();
+			return true;
+		}
+		var command = new RecordingCommand(domain, label) {
+			@Override
+			protected void doExecute() {
+				edits.run();
+			}
+		};
+		var stack = domain.getCommandStack();
+		if (!(stack instanceof TransactionalCommandStack)) {
+			stack.execute(command);
+			return true;
+		}
+		try {
+			((TransactionalCommandStack) stack).execute(command, null);
+			return true;
+		} catch (RollbackException e) {
+			ViewpointLog.warning("propertyEdits", label + " was rolled back: " + e.getStatus().getMessage());
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Sets the given property of the given element to the given value; a null or empty
+	 * value removes the property values.
+	 */
+	Outcome set(AnnotatedElement element, String abbreviatedPropertyIri, Object value) {
+		if ("".equals(value)) {
+			value = null;
+		}
+		var property = resolve(element.getOntology(), abbreviatedPropertyIri);
+		if (property instanceof AnnotationProperty) {
+			return setAnnotation(element, (AnnotationProperty) property, value);
+		} else if (property instanceof ScalarProperty) {
+			List<PropertyValueAssertion> propertyValues;
+			if (element instanceof NamedInstance) {
+				propertyValues = ((NamedInstance)element).getOwnedPropertyValues();
+			} else if (element instanceof NamedInstanceReference) {
+				propertyValues = ((NamedInstanceReference)element).getOwnedPropertyValues();
+			} else {
+				ViewpointLog.warning("setPropertyByAbbreviatedIri", "Can't set a ScalarProperty on something that isn't a NamedInstance or NamedInstanceReference: " + element);
+				return Outcome.FAILED;
+			}
+			return setScalarProperty(element.getOntology(), propertyValues, (ScalarProperty) property, value);
+		} else {
+			ViewpointLog.warning("setPropertyByAbbreviatedIri", "Not a scalar or annotation property: " + abbreviatedPropertyIri);
+			return Outcome.FAILED;
+		}
+	}
+
+	private Member resolve(Ontology ontology, String abbreviatedPropertyIri) {
+		return properties.computeIfAbsent(ontology, k -> new HashMap<>())
+			.computeIfAbsent(abbreviatedPropertyIri, iri -> MemberCache.getMemberByAbbreviatedIri(ontology, iri));
+	}
+
+	private static Outcome setAnnotation(AnnotatedElement element, AnnotationProperty property, Object value) {
+		var ontology = element.getOntology();
+		var outcome = Outcome.UNCHANGED;
+		var valueWasSet = false;
+		for (var it = element.getOwnedAnnotations().iterator(); it.hasNext(); ) {
+			var annotation = it.next();
+			if (annotation.getProperty() == property) {
+				if (!valueWasSet && value != null) {
+					if (!LITERALS.matches(annotation.getValue(), value, ontology)) {
+						var literal = LITERALS.update(annotation.getValue(), value, ontology);
+						if (literal != annotation.getValue()) {
+							annotation.setValue(literal);
+						}
+						outcome = Outcome.SET;
+					}
+					valueWasSet = true;
+				} else {
+					it.remove();
+					outcome = (value != null) ? Outcome.SET : Outcome.CLEARED;
+				}
+			}
+		}
+		if (!valueWasSet && value != null) {
+			var annotation = OmlFactory.eINSTANCE.createAnnotation();
+			annotation.setProperty(property);
+			annotation.setValue(LITERALS.create(value, ontology));
+			element.getOwnedAnnotations().add(annotation);
+			outcome = Outcome.SET;
+		}
+		return outcome;
+	}
+
+	private static Outcome setScalarProperty(Ontology ontology, List<PropertyValueAssertion> propertyValues, ScalarProperty property, Object value) {
+		var outcome = Outcome.UNCHANGED;
+		var valueWasSet = false;
+		for (var it = propertyValues.iterator(); it.hasNext(); ) {
+			var propertyValue = it.next();
+			if (propertyValue instanceof ScalarPropertyValueAssertion && ((ScalarPropertyValueAssertion)propertyValue).getProperty() == property) {
+				if (!valueWasSet && value != null) {
+					var assertion = (ScalarPropertyValueAssertion)propertyValue;
+					if (!LITERALS.matches(assertion.getValue(), value, ontology)) {
+						var literal = LITERALS.update(assertion.getValue(), value, ontology);
+						if (literal != assertion.getValue()) {
+							assertion.setValue(literal);
+						}
+						outcome = Outcome.SET;
+					}
+					valueWasSet = true;
+				} else {
+					it.remove();
+					outcome = (value != null) ? Outcome.SET : Outcome.CLEARED;
+				}
+			}
+		}
+		if (!valueWasSet && value != null) {
+			var propertyValue = OmlFactory.eINSTANCE.createScalarPropertyValueAssertion();
+			propertyValue.setProperty(property);
+			propertyValue.setValue(LITERALS.create(value, ontology));
+			propertyValues.add(propertyValue);
+			outcome = Outcome.SET;
+		}
+		return outcome;
+	}
+}
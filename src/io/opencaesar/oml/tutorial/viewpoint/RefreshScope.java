@@ -0,0 +1,251 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.sirius.business.api.dialect.DialectManager;
+import org.eclipse.sirius.tools.api.command.ui.RefreshFilter;
+import org.eclipse.sirius.tools.api.command.ui.RefreshFilterManager;
+import org.eclipse.sirius.viewpoint.DRepresentation;
+import org.eclipse.sirius.viewpoint.DSemanticDecorator;
+
+import io.opencaesar.oml.OmlPackage;
+import io.opencaesar.oml.Ontology;
+
+/**
+ * A Sirius refresh filter that skips the automatic refresh of the Entity and Instance
+ * diagrams when none of the changes since their last refresh can affect them.
+ *
+ * The visualization services record the sets they return for each ontology. A change
+ * affects a diagram when it is made to its ontology, to one of the objects it last
+ * visualized or to something they contain, when it renames a member or changes a
+ * prefix (names show up in the labels), or when a resource changes. Changes are
+ * checked as they happen, against the sets of the diagram's last refresh, by a
+ * recorder notified of the changes of the resource set's OML resources by
+ * {@link ModelChanges}, so the filter itself only reads a flag.
+ *
+ * Refreshed and skipped refreshes are counted in the {@link ServiceMetrics} as
+ * <code>refresh:refreshed</code> and <code>refresh:skipped</code>.
+ */
+final class RefreshScope implements RefreshFilter {
+
+	static final Set<String> FILTERED = Set.of("Entity Diagram", "Instance Diagram");
+
+	private static final RefreshScope INSTANCE = new RefreshScope();
+
+	private static final Set<Visualized> visualized = Collections.newSetFromMap(new WeakHashMap<>());
+
+	private final Map<DRepresentation, State> states = new WeakHashMap<>();
+
+	private final Set<Recorder> recorders = Collections.newSetFromMap(new WeakHashMap<>());
+
+	private RefreshScope() {
+	}
+
+	/**
+	 * Starts filtering the automatic refreshes.
+	 */
+	static void install() {
+		RefreshFilterManager.INSTANCE.addRefreshFilter(INSTANCE);
+	}
+
+	/**
+	 * Stops filtering the automatic refreshes and forgets the recorded changes.
+	 */
+	static void uninstall() {
+		RefreshFilterManager.INSTANCE.removeRefreshFilter(INSTANCE);
+		synchronized (INSTANCE) {
+			for (var recorder : INSTANCE.recorders) {
+				ModelChanges.remove(recorder.resourceSet, recorder);
+			}
+			INSTANCE.recorders.clear();
+			INSTANCE.states.clear();
+		}
+		synchronized (visualized) {
+			for (var adapter : visualized) {
+				if (adapter.getTarget() != null) {
+					adapter.getTarget().eAdapters().remove(adapter);
+				}
+			}
+			visualized.clear();
+		}
+	}
+
+	/**
+	 * Records the elements that the given service returned for the given ontology.
+	 */
+	static void visualized(Ontology ontology, String service, Collection<?> elements) {
+		Visualized.get(ontology, true).put(service, elements);
+	}
+
+	@Override
+	public synchronized boolean shouldBeRefreshed(DRepresentation representation) {
+		var ontology = getOntology(representation);
+		if (ontology == null || ontology.eResource() == null || ontology.eResource().getResourceSet() == null) {
+			return true;
+		}
+		var state = states.get(representation);
+		boolean refresh;
+		if (state == null || state.ontology != ontology) {
+			state = new State(representation, ontology);
+			states.put(representation, state);
+			getRecorder(ontology.eResource().getResourceSet()).add(state);
+			refresh = true;
+		} else {
+			refresh = state.reset();
+		}
+		ServiceMetrics.call(refresh ? "refresh:refreshed" : "refresh:skipped", ontology).close();
+		return refresh;
+	}
+
+	private static Ontology getOntology(DRepresentation representation) {
+		var description = DialectManager.INSTANCE.getDescription(representation);
+		if (description == null || !FILTERED.contains(description.getName()) || !(representation instanceof DSemanticDecorator)) {
+			return null;
+		}
+		var target = ((DSemanticDecorator) representation).getTarget();
+		return (target instanceof Ontology) ? (Ontology) target : null;
+	}
+
+	private Recorder getRecorder(ResourceSet resourceSet) {
+		var recorder = ModelChanges.get(resourceSet, Recorder.class, Recorder::new);
+		recorders.add(recorder);
+		return recorder;
+	}
+
+	/**
+	 * Returns whether the given change can affect a diagram of the given ontology.
+	 */
+	private static boolean affects(Notification notification, Ontology ontology) {
+		var notifier = notification.getNotifier();
+		if (notifier instanceof Resource) {
+			return notification.getFeatureID(Resource.class) != Resource.RESOURCE__IS_MODIFIED;
+		}
+		if (!(notifier instanceof EObject) || ((EObject) notifier).eClass().getEPackage() != OmlPackage.eINSTANCE) {
+			return false;
+		}
+		var feature = notification.getFeature();
+		if (feature == OmlPackage.Literals.MEMBER__NAME || feature == OmlPackage.Literals.ONTOLOGY__PREFIX) {
+			return true;
+		}
+		var recorded = Visualized.get(ontology, false);
+		if (recorded == null) {
+			return true;
+		}
+		var sets = recorded.sets.values();
+		for (var object = (EObject) notifier; object != null; object = object.eContainer()) {
+			if (object == ontology) {
+				return true;
+			}
+			for (var set : sets) {
+				if (set.contains(object)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * The elements that the visualization services last returned for an ontology. Kept in
+	 * an adapter of the ontology, so that they are collected with it.
+	 */
+	private static final class Visualized extends AdapterImpl {
+		// copied on write, so that changes are checked without holding a lock
+		private volatile Map<String, Collection<?>> sets = Collections.emptyMap();
+
+		static Visualized get(Ontology ontology, boolean create) {
+			synchronized (ontology) {
+				for (Adapter adapter : ontology.eAdapters()) {
+					if (adapter instanceof Visualized) {
+						return (Visualized) adapter;
+					}
+				}
+				if (!create) {
+					return null;
+				}
+				var adapter = new Visualized();
+				ontology.eAdapters().add(adapter);
+				synchronized (visualized) {
+					visualized.add(adapter);
+				}
+				return adapter;
+			}
+		}
+
+		synchronized void put(String service, Collection<?> elements) {
+			var copy = new HashMap<String, Collection<?>>(sets);
+			copy.put(service, elements);
+			sets = Collections.unmodifiableMap(copy);
+		}
+	}
+
+	/**
+	 * Whether a representation has been affected by a change since its last refresh.
+	 */
+	private static final class State {
+		final WeakReference<DRepresentation> representation;
+		final Ontology ontology;
+		private boolean affected;
+
+		State(DRepresentation representation, Ontology ontology) {
+			this.representation = new WeakReference<>(representation);
+			this.ontology = ontology;
+		}
+
+		synchronized void record(Notification notification) {
+			if (!affected && affects(notification, ontology)) {
+				affected = true;
+			}
+		}
+
+		/**
+		 * Returns whether the representation was affected, and starts recording anew.
+		 */
+		synchronized boolean reset() {
+			var result = affected;
+			affected = false;
+			return result;
+		}
+	}
+
+	/**
+	 * Checks the changes made in a resource set against the states of its diagrams.
+	 */
+	private static final class Recorder implements ModelChanges.Listener {
+		final ResourceSet resourceSet;
+		private final List<State> states = new ArrayList<>();
+
+		Recorder(ResourceSet resourceSet) {
+			this.resourceSet = resourceSet;
+		}
+
+		synchronized void add(State state) {
+			states.removeIf(s -> s.representation.get() == null || s.representation.get() == state.representation.get());
+			states.add(state);
+		}
+
+		@Override
+		public void notifyChanged(Notification notification) {
+			synchronized (this) {
+				states.removeIf(s -> s.representation.get() == null);
+				for (var state : states) {
+					state.record(notification);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,348 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+
+import io.opencaesar.oml.Ontology;
+
+/**
+ * Invocation metrics of the {@link Services} methods.
+ *
+ * Every public service records its call count, cumulative latency, a latency
+ * histogram (from which the p99 is estimated) and the cumulative size of its
+ * results, per service and per resource it is evaluated on. The scope of a resource
+ * (the namespace of its ontology, or its file name for representation resources) is
+ * computed once and kept in an adapter of the resource, and metrics are keyed by scope
+ * strings, so that they never keep a model in memory. Measuring a call allocates
+ * nothing once its metric exists: calls are reused per thread and counters are
+ * preallocated. Recording is lock free, and the metrics are published through JMX by
+ * the {@link Activator} and shown in the Service Metrics view.
+ *
+ * The hits and misses of the {@link MemberCache} are recorded the same way, as the
+ * <code>memberCache:hit</code> and <code>memberCache:miss</code> services.
+ *
+ * Metrics can be turned off with the <code>io.opencaesar.oml.tutorial.viewpoint.metrics</code>
+ * system property or through JMX, in which case calls aren't measured at all.
+ */
+public final class ServiceMetrics implements ServiceMetricsMXBean {
+
+	/**
+	 * The singleton instance.
+	 */
+	public static final ServiceMetrics INSTANCE = new ServiceMetrics();
+
+	static final String CSV_HEADER = "service,scope,calls,total_ms,avg_us,p99_us,max_us,avg_result_size";
+
+	private static volatile boolean enabled = Boolean.parseBoolean(System.getProperty("io.opencaesar.oml.tutorial.viewpoint.metrics", "true"));
+
+	private static final ThreadLocal<Calls> calls = ThreadLocal.withInitial(Calls::new);
+
+	private final Map<String, Map<String, Metric>> metrics = new ConcurrentHashMap<>();
+
+	private ServiceMetrics() {
+	}
+
+	/**
+	 * Starts measuring a call of the given service on the given context object.
+	 */
+	static Call call(String service, Object context) {
+		return enabled ? calls.get().push(service, context) : Call.DISABLED;
+	}
+
+	/**
+	 * A call being measured, closed when the service returns. Calls are reused, so they
+	 * must be closed on the thread that started them, in reverse order.
+	 */
+	static final class Call implements AutoCloseable {
+		static final Call DISABLED = new Call(null);
+		private final Calls owner;
+		private String service;
+		private Object context;
+		private long start;
+		private long size;
+
+		private Call(Calls owner) {
+			this.owner = owner;
+		}
+
+		/**
+		 * Records the size of the given result and returns it.
+		 */
+		<T> T result(T result) {
+			if (owner == null) {
+				return result;
+			}
+			if (result instanceof Collection<?>) {
+				size = ((Collection<?>) result).size();
+			} else if (result instanceof Map<?, ?>) {
+				size = ((Map<?, ?>) result).size();
+			} else if (result != null) {
+				size = 1;
+			}
+			return result;
+		}
+
+		@Override
+		public void close() {
+			if (owner == null) {
+				return;
+			}
+			try {
+				INSTANCE.record(service, context, System.nanoTime() - start, size);
+			} finally {
+				context = null;
+				owner.depth--;
+			}
+		}
+	}
+
+	/**
+	 * The stack of calls being measured on a thread.
+	 */
+	private static final class Calls {
+		private Call[] stack = new Call[8];
+		private int depth;
+
+		Call push(String service, Object context) {
+			if (depth == stack.length) {
+				stack = Arrays.copyOf(stack, depth * 2);
+			}
+			var call = stack[depth];
+			if (call == null) {
+				call = stack[depth] = new Call(this);
+			}
+			depth++;
+			call.service = service;
+			call.context = context;
+			call.size = 0;
+			call.start = System.nanoTime();
+			return call;
+		}
+	}
+
+	private void record(String service, Object context, long nanos, long size) {
+		var scope = Scope.of(context);
+		var scoped = metrics.get(scope);
+		if (scoped == null) {
+			scoped = metrics.computeIfAbsent(scope, k -> new ConcurrentHashMap<>());
+		}
+		var metric = scoped.get(service);
+		if (metric == null) {
+			metric = scoped.computeIfAbsent(service, k -> new Metric());
+		}
+		metric.record(nanos, size);
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		ServiceMetrics.enabled = enabled;
+	}
+
+	/**
+	 * Returns a snapshot of the current metrics, sorted by decreasing total latency.
+	 */
+	public List<Row> getRows() {
+		var rows = new ArrayList<Row>();
+		metrics.forEach((scope, scoped) -> scoped.forEach((service, metric) -> rows.add(new Row(service, scope, metric))));
+		rows.sort(Comparator.comparingLong((Row r) -> r.totalNanos).reversed());
+		return rows;
+	}
+
+	@Override
+	public String[] getReport() {
+		return getRows().stream().map(Row::toString).toArray(String[]::new);
+	}
+
+	@Override
+	public String toCsv() {
+		var csv = new StringBuilder(CSV_HEADER).append('\n');
+		for (var row : getRows()) {
+			row.appendCsv(csv);
+			csv.append('\n');
+		}
+		return csv.toString();
+	}
+
+	@Override
+	public void dumpCsv(String path) throws IOException {
+		Files.write(Paths.get(path), toCsv().getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public void reset() {
+		metrics.clear();
+	}
+
+	/**
+	 * The scope of the metrics of the services evaluated on a resource, computed when
+	 * they are first recorded and kept in an adapter of the resource.
+	 */
+	private static final class Scope extends AdapterImpl {
+		final String name;
+
+		private Scope(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Returns the scope of the given context object, which is empty outside of a
+		 * resource.
+		 */
+		static String of(Object context) {
+			var resource = (context instanceof EObject) ? ((EObject) context).eResource() : null;
+			if (resource == null) {
+				return "";
+			}
+			synchronized (resource) {
+				// indexed, so that finding the scope allocates no iterator
+				var adapters = resource.eAdapters();
+				for (int i = 0; i < adapters.size(); i++) {
+					if (adapters.get(i) instanceof Scope) {
+						return ((Scope) adapters.get(i)).name;
+					}
+				}
+				var scope = new Scope(getName(resource));
+				adapters.add(scope);
+				return scope.name;
+			}
+		}
+
+		/**
+		 * Returns the namespace of the ontology of the given resource, or the name of its
+		 * file if it holds no ontology.
+		 */
+		private static String getName(Resource resource) {
+			var contents = resource.getContents();
+			if (!contents.isEmpty() && contents.get(0) instanceof Ontology) {
+				return ((Ontology) contents.get(0)).getNamespace();
+			}
+			var uri = resource.getURI();
+			return (uri != null && uri.lastSegment() != null) ? uri.lastSegment() : "";
+		}
+	}
+
+	/**
+	 * The recorded measurements of a service on a scope. Latencies are kept in a log-linear
+	 * histogram with 4 sub-buckets per power of two nanoseconds.
+	 */
+	private static final class Metric {
+		private static final int BUCKETS = 4 * 64;
+		final LongAdder calls = new LongAdder();
+		final LongAdder totalNanos = new LongAdder();
+		final LongAdder totalSize = new LongAdder();
+		final AtomicLong maxNanos = new AtomicLong();
+		final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+		void record(long nanos, long size) {
+			calls.increment();
+			totalNanos.add(nanos);
+			totalSize.add(size);
+			maxNanos.accumulateAndGet(nanos, Math::max);
+			histogram.incrementAndGet(bucket(nanos));
+		}
+
+		long percentile(double fraction) {
+			long count = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				count += histogram.get(i);
+			}
+			long rank = (long) Math.ceil(count * fraction);
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += histogram.get(i);
+				if (seen >= rank && seen > 0) {
+					return upperBound(i);
+				}
+			}
+			return 0;
+		}
+
+		private static int bucket(long nanos) {
+			if (nanos < 4) {
+				return (int) Math.max(nanos, 0);
+			}
+			int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+			int mantissa = (int) (nanos >>> (exponent - 2)) & 3;
+			return Math.min(exponent * 4 + mantissa, BUCKETS - 1);
+		}
+
+		private static long upperBound(int bucket) {
+			if (bucket < 4) {
+				return bucket;
+			}
+			int exponent = bucket / 4;
+			int mantissa = bucket % 4;
+			return ((4L + mantissa + 1) << (exponent - 2)) - 1;
+		}
+	}
+
+	/**
+	 * A snapshot of the metrics of a service on a scope.
+	 */
+	public static final class Row {
+		public final String service;
+		public final String scope;
+		public final long calls;
+		public final long totalNanos;
+		public final long p99Nanos;
+		public final long maxNanos;
+		public final long totalSize;
+
+		private Row(String service, String scope, Metric metric) {
+			this.service = service;
+			this.scope = scope;
+			calls = metric.calls.sum();
+			totalNanos = metric.totalNanos.sum();
+			p99Nanos = metric.percentile(0.99);
+			maxNanos = metric.maxNanos.get();
+			totalSize = metric.totalSize.sum();
+		}
+
+		public double getAverageMicros() {
+			return (calls == 0) ? 0 : totalNanos / 1e3 / calls;
+		}
+
+		public double getAverageSize() {
+			return (calls == 0) ? 0 : (double) totalSize / calls;
+		}
+
+		void appendCsv(StringBuilder csv) {
+			csv.append(service).append(',')
+				.append(scope).append(',')
+				.append(calls).append(',')
+				.append(String.format("%.3f", totalNanos / 1e6)).append(',')
+				.append(String.format("%.3f", getAverageMicros())).append(',')
+				.append(String.format("%.3f", p99Nanos / 1e3)).append(',')
+				.append(String.format("%.3f", maxNanos / 1e3)).append(',')
+				.append(String.format("%.1f", getAverageSize()));
+		}
+
+		@Override
+		public String toString() {
+			var text = new StringBuilder();
+			appendCsv(text);
+			return text.toString();
+		}
+	}
+}
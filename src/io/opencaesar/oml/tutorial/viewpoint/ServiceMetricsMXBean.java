@@ -0,0 +1,44 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.io.IOException;
+
+/**
+ * The JMX interface of the {@link ServiceMetrics}.
+ */
+public interface ServiceMetricsMXBean {
+
+	/**
+	 * The object name the metrics are registered with.
+	 */
+	String OBJECT_NAME = "io.opencaesar.oml.tutorial.viewpoint:type=ServiceMetrics";
+
+	/**
+	 * Returns whether service calls are measured.
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Turns the measurement of service calls on or off.
+	 */
+	void setEnabled(boolean enabled);
+
+	/**
+	 * Returns one CSV line per service and scope, sorted by decreasing total latency.
+	 */
+	String[] getReport();
+
+	/**
+	 * Returns the metrics as CSV, with a header line.
+	 */
+	String toCsv();
+
+	/**
+	 * Writes the metrics as CSV to the file at the given path.
+	 */
+	void dumpCsv(String path) throws IOException;
+
+	/**
+	 * Clears all the metrics.
+	 */
+	void reset();
+}
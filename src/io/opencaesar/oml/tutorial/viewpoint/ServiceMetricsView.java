@@ -0,0 +1,104 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.ColumnLabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.TableViewerColumn;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.ui.part.ViewPart;
+
+import io.opencaesar.oml.tutorial.viewpoint.ServiceMetrics.Row;
+
+/**
+ * A view that shows the {@link ServiceMetrics} of the viewpoint services.
+ */
+public class ServiceMetricsView extends ViewPart {
+
+	/**
+	 * The ID of the view as specified by the extension.
+	 */
+	public static final String ID = "oml-tutorial-viewpoint.serviceMetrics";
+
+	private TableViewer viewer;
+
+	@Override
+	public void createPartControl(Composite parent) {
+		viewer = new TableViewer(parent, SWT.MULTI | SWT.H_SCROLL | SWT.V_SCROLL | SWT.FULL_SELECTION);
+		viewer.getTable().setHeaderVisible(true);
+		viewer.getTable().setLinesVisible(true);
+		viewer.setContentProvider(ArrayContentProvider.getInstance());
+		addColumn("Service", 280, r -> r.service);
+		addColumn("Scope", 240, r -> r.scope);
+		addColumn("Calls", 80, r -> Long.toString(r.calls));
+		addColumn("Total (ms)", 90, r -> String.format("%.3f", r.totalNanos / 1e6));
+		addColumn("Avg (us)", 90, r -> String.format("%.3f", r.getAverageMicros()));
+		addColumn("p99 (us)", 90, r -> String.format("%.3f", r.p99Nanos / 1e3));
+		addColumn("Max (us)", 90, r -> String.format("%.3f", r.maxNanos / 1e3));
+		addColumn("Avg Size", 80, r -> String.format("%.1f", r.getAverageSize()));
+
+		var toolBar = getViewSite().getActionBars().getToolBarManager();
+		toolBar.add(new Action("Refresh") {
+			@Override
+			public void run() {
+				refresh();
+			}
+		});
+		toolBar.add(new Action("Reset") {
+			@Override
+			public void run() {
+				ServiceMetrics.INSTANCE.reset();
+				refresh();
+			}
+		});
+		toolBar.add(new Action("Dump to CSV") {
+			@Override
+			public void run() {
+				dumpCsv();
+			}
+		});
+		refresh();
+	}
+
+	private void addColumn(String title, int width, Function<Row, String> text) {
+		var column = new TableViewerColumn(viewer, SWT.NONE);
+		column.getColumn().setText(title);
+		column.getColumn().setWidth(width);
+		column.setLabelProvider(new ColumnLabelProvider() {
+			@Override
+			public String getText(Object element) {
+				return text.apply((Row) element);
+			}
+		});
+	}
+
+	private void refresh() {
+		viewer.setInput(ServiceMetrics.INSTANCE.getRows());
+	}
+
+	private void dumpCsv() {
+		var dialog = new FileDialog(getSite().getShell(), SWT.SAVE);
+		dialog.setFilterExtensions(new String[] { "*.csv" });
+		dialog.setFileName("service-metrics.csv");
+		dialog.setOverwrite(true);
+		var path = dialog.open();
+		if (path != null) {
+			try {
+				ServiceMetrics.INSTANCE.dumpCsv(path);
+			} catch (IOException e) {
+				MessageDialog.openError(getSite().getShell(), "Dump to CSV", "Can't write " + path + ": " + e.getMessage());
+			}
+		}
+	}
+
+	@Override
+	public void setFocus() {
+		viewer.getControl().setFocus();
+	}
+}
@@ -1,17 +1,21 @@
 package io.opencaesar.oml.tutorial.viewpoint;
 
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.sirius.viewpoint.DRepresentation;
 import org.eclipse.ui.IEditorPart;
 import org.eclipse.ui.IWorkbenchPage;
 import org.eclipse.ui.PartInitException;
@@ -29,7 +33,6 @@ import io.opencaesar.oml.ConceptInstanceReference;
 import io.opencaesar.oml.Description;
 import io.opencaesar.oml.DifferentFromPredicate;
 import io.opencaesar.oml.Entity;
-import io.opencaesar.oml.EntityReference;
 import io.opencaesar.oml.FeaturePredicate;
 import io.opencaesar.oml.ForwardRelation;
 import io.opencaesar.oml.LinkAssertion;
@@ -37,19 +40,16 @@ import io.opencaesar.oml.Literal;
 import io.opencaesar.oml.NamedInstance;
 import io.opencaesar.oml.NamedInstanceReference;
 import io.opencaesar.oml.OmlFactory;
+import io.opencaesar.oml.Ontology;
 import io.opencaesar.oml.Predicate;
-import io.opencaesar.oml.PropertyValueAssertion;
-import io.opencaesar.oml.QuotedLiteral;
 import io.opencaesar.oml.Reference;
 import io.opencaesar.oml.Relation;
-import io.opencaesar.oml.RelationCardinalityRestrictionAxiom;
 import io.opencaesar.oml.RelationEntity;
 import io.opencaesar.oml.RelationEntityPredicate;
 import io.opencaesar.oml.RelationInstance;
+import io.opencaesar.oml.RelationCardinalityRestrictionAxiom;
 import io.opencaesar.oml.RelationInstanceReference;
-import io.opencaesar.oml.RelationRangeRestrictionAxiom;
 import io.opencaesar.oml.RelationRestrictionAxiom;
-import io.opencaesar.oml.RelationTargetRestrictionAxiom;
 import io.opencaesar.oml.ReverseRelation;
 import io.opencaesar.oml.Rule;
 import io.opencaesar.oml.SameAsPredicate;
@@ -67,454 +67,597 @@ import io.opencaesar.oml.util.OmlSearch;
 public class Services {
     
 	public static Object getAnnotationByAbbreviatedIri(AnnotatedElement element, String abbreviatedPropertyIri) {
-		var property = (AnnotationProperty) OmlRead.getMemberByAbbreviatedIri(element, abbreviatedPropertyIri); 
-		for (var propertyValue : OmlSearch.findAnnotationValues(element, property)) {
-			return OmlRead.getValue(propertyValue);
+		try (var call = ServiceMetrics.call("getAnnotationByAbbreviatedIri", element)) {
+			var property = (AnnotationProperty) MemberCache.getMemberByAbbreviatedIri(element.getOntology(), abbreviatedPropertyIri);
+			for (var propertyValue : OmlSearch.findAnnotationValues(element, property)) {
+				return call.result(OmlRead.getValue(propertyValue));
+			}
+			return call.result(null);
 		}
-		return null;
 	}
 
 	public static Object getScalarPropertyValueByAbbreviatedIri(NamedInstance instance, String abbreviatedPropertyIri) {
-		var property = (AnnotationProperty) OmlRead.getMemberByAbbreviatedIri(instance, abbreviatedPropertyIri); 
-		for (var propertyValue : OmlSearch.findAnnotationValues(instance, property)) {
-			return OmlRead.getLexicalValue(propertyValue);
-		} 
-		return null;
+		try (var call = ServiceMetrics.call("getScalarPropertyValueByAbbreviatedIri", instance)) {
+			var property = (AnnotationProperty) MemberCache.getMemberByAbbreviatedIri(instance.getOntology(), abbreviatedPropertyIri);
+			for (var propertyValue : OmlSearch.findAnnotationValues(instance, property)) {
+				return call.result(OmlRead.getLexicalValue(propertyValue));
+			} 
+			return call.result(null);
+		}
 	}
 
-	public static void setPropertyByAbbreviatedIri(AnnotatedElement element, String abbreviatedPropertyIri, Object value) {
-		if (value.equals("")) value = null; 
-		var ontology = element.getOntology();
-		var property = OmlRead.getMemberByAbbreviatedIri(ontology, abbreviatedPropertyIri);
-		var valueWasSet = false;
-		if (property instanceof AnnotationProperty) {
-			for (var it = element.getOwnedAnnotations().iterator(); it.hasNext(); ) {
-				var annotation = it.next();
-				if (annotation.getProperty() == property) {
-					if (!valueWasSet && value != null) {
-						annotation.setValue(asLiteral(value));
-						valueWasSet = true;
-					} else {
-						it.remove();
-					}
+	/**
+	 * Returns the lexical value of the given concept instance's first value of the given
+	 * scalar property, or null if it has none or is not a concept instance.
+	 */
+	public static String getScalarPropertyLexicalValue(EObject element, String abbreviatedPropertyIri) {
+		try (var call = ServiceMetrics.call("getScalarPropertyLexicalValue", element)) {
+			if (!(element instanceof ConceptInstance)) {
+				return call.result(null);
+			}
+			var instance = (ConceptInstance) element;
+			var property = MemberCache.getMemberByAbbreviatedIri(instance.getOntology(), abbreviatedPropertyIri);
+			for (var propertyValue : instance.getOwnedPropertyValues()) {
+				if (propertyValue instanceof ScalarPropertyValueAssertion && ((ScalarPropertyValueAssertion) propertyValue).getProperty() == property) {
+					return call.result(OmlRead.getLexicalValue(((ScalarPropertyValueAssertion) propertyValue).getValue()));
 				}
 			}
-			if (!valueWasSet && value != null) {
-				var annotation = OmlFactory.eINSTANCE.createAnnotation();
-				annotation.setProperty((AnnotationProperty)property);
-				annotation.setValue(asLiteral(value));
-				element.getOwnedAnnotations().add(annotation);
+			// values asserted on references to the instance
+			for (var value : OmlSearch.findScalarPropertyValuesByAbbreviatedIri(instance, abbreviatedPropertyIri)) {
+				return call.result(OmlRead.getLexicalValue(value));
 			}
-		} else if (property instanceof ScalarProperty) {
-			List<PropertyValueAssertion> propertyValues;
-			if (element instanceof NamedInstance) {
-				propertyValues = ((NamedInstance)element).getOwnedPropertyValues();
-			} else if (element instanceof NamedInstanceReference) {
-				propertyValues = ((NamedInstanceReference)element).getOwnedPropertyValues();
-			} else {
-				System.err.println("Can't set a ScalarProperty on something that isn't a NamedInstance or NamedInstanceReference: " + element);
+			return call.result(null);
+		}
+	}
+
+	public static void setPropertyByAbbreviatedIri(AnnotatedElement element, String abbreviatedPropertyIri, Object value) {
+		try (var call = ServiceMetrics.call("setPropertyByAbbreviatedIri", element)) {
+			new PropertyEdits().set(element, abbreviatedPropertyIri, value);
+		}
+	}
+
+	/**
+	 * Sets the given property values (by abbreviated property IRI) of each element in the
+	 * command of the calling tool, and returns a summary of the changes.
+	 */
+	public static String setPropertiesByAbbreviatedIri(Map<? extends AnnotatedElement, ? extends Map<String, ?>> edits) {
+		try (var call = ServiceMetrics.call("setPropertiesByAbbreviatedIri", null)) {
+			return call.result(PropertyEdits.apply(edits, true).toString());
+		}
+	}
+
+	/**
+	 * Sets the given property of each element to the value at the same position (e.g., a
+	 * pasted column) in the command of the calling tool, and returns a summary of the
+	 * changes.
+	 */
+	public static String setPropertyValuesByAbbreviatedIri(List<? extends AnnotatedElement> elements, String abbreviatedPropertyIri, List<?> values) {
+		try (var call = ServiceMetrics.call("setPropertyValuesByAbbreviatedIri", null)) {
+			return call.result(PropertyEdits.apply(elements, abbreviatedPropertyIri, values, true).toString());
+		}
+	}
+
+	public static Literal asLiteral(Object value) {
+		try (var call = ServiceMetrics.call("asLiteral", null)) {
+			return call.result(LiteralFactory.INSTANCE.create(value, null));
+		}
+	}
+
+	public static Literal asLiteral(Object value, Ontology ontology) {
+		try (var call = ServiceMetrics.call("asLiteral(Object, Ontology)", ontology)) {
+			return call.result(LiteralFactory.INSTANCE.create(value, ontology));
+		}
+	}
+
+	public static void deleteNamedInstance(NamedInstance instance) {
+		deleteNamedInstances(Collections.singleton(instance));
+	}
+
+	public static void deleteNamedInstances(Collection<? extends NamedInstance> instances) {
+		try (var call = ServiceMetrics.call("deleteNamedInstances", instances.isEmpty() ? null : instances.iterator().next())) {
+			if (instances.isEmpty()) {
 				return;
 			}
-			for (var it = propertyValues.iterator(); it.hasNext(); ) {
-				var propertyValue = it.next();
-				if (propertyValue instanceof ScalarPropertyValueAssertion && ((ScalarPropertyValueAssertion)propertyValue).getProperty() == property) {
-					if (!valueWasSet && value != null) {
-						((ScalarPropertyValueAssertion)propertyValue).setValue(asLiteral(value));
-						valueWasSet = true;
-					} else {
-						it.remove();
+			var usages = InstanceUsageIndex.of(instances.iterator().next());
+			// compute the deletion closure: references and links to deleted instances,
+			// and relation instances whose source or target is deleted
+			var deleted = new LinkedHashSet<EObject>();
+			var queue = new ArrayDeque<NamedInstance>(instances);
+			while (!queue.isEmpty()) {
+				var instance = queue.poll();
+				if (!deleted.add(instance)) {
+					continue;
+				}
+				for (var setting : usages.getUsages(instance)) {
+					var user = setting.getEObject();
+					if (user instanceof Reference || user instanceof LinkAssertion) {
+						deleted.add(user);
+					} else if (user instanceof RelationInstance) {
+						queue.add((RelationInstance) user);
 					}
 				}
 			}
-			if (!valueWasSet && value != null) {
-				var propertyValue = OmlFactory.eINSTANCE.createScalarPropertyValueAssertion();
-				propertyValue.setProperty((ScalarProperty)property);
-				propertyValue.setValue(asLiteral(value));
-				propertyValues.add(propertyValue);
+			// clear the remaining usages, then detach everything
+			for (var object : deleted) {
+				for (var setting : usages.getUsages(object)) {
+					if (!deleted.contains(setting.getEObject()) && setting.getEStructuralFeature().isChangeable()) {
+						EcoreUtil.remove(setting, object);
+					}
+				}
+			}
+			for (var object : deleted) {
+				EcoreUtil.remove(object);
 			}
-		} else {
-			System.err.println("Not a scalar or annotation property: " + abbreviatedPropertyIri);
 		}
 	}
 
-	public static Literal asLiteral(Object value) {
-		if (value instanceof Double) {
-			var literal = OmlFactory.eINSTANCE.createDoubleLiteral();
-			literal.setValue((Double)value);
-			return literal;
+	public static void deleteLinkByAbbreviatedIri(NamedInstance source, NamedInstance target, String abbreviatedRelationIri) {
+		try (var call = ServiceMetrics.call("deleteLinkByAbbreviatedIri", source)) {
+			var resourceSet = source.eResource().getResourceSet();
+			Relation relation = (Relation) MemberCache.getMemberByAbbreviatedIri(resourceSet, abbreviatedRelationIri);
+			for (var link : LinkIndex.get(resourceSet).getLinks(source, relation, target)) {
+				EcoreUtil.remove(link);
+			}
 		}
-		var literal = OmlFactory.eINSTANCE.createQuotedLiteral();
-		literal.setValue(value.toString());
-		return literal;
 	}
 
+	public static boolean hasLinkByAbbreviatedIri(NamedInstance source, NamedInstance target, String abbreviatedRelationIri) {
+		try (var call = ServiceMetrics.call("hasLinkByAbbreviatedIri", source)) {
+			var resourceSet = source.eResource().getResourceSet();
+			Relation relation = (Relation) MemberCache.getMemberByAbbreviatedIri(resourceSet, abbreviatedRelationIri);
+			return call.result(LinkIndex.get(resourceSet).hasLink(source, relation, target));
+		}
+	}
 
-	public static void deleteNamedInstance(NamedInstance instance) {
-		for (Reference r : OmlSearch.findReferences(instance)) {
-			EcoreUtil.delete(r);
-		};
-		for (LinkAssertion a : OmlSearch.findLinkAssertionsWithTarget(instance)) {
-			EcoreUtil.delete(a);
-		};
-		for (RelationInstance ri : OmlSearch.findRelationInstancesWithTarget(instance)) {
-			deleteNamedInstance(ri);
-		};
-		for (RelationInstance ri : OmlSearch.findRelationInstancesWithSource(instance)) {
-			deleteNamedInstance(ri);
-		};
-		EcoreUtil.delete(instance);
+	public static List<NamedInstance> getLinkedTargetsByAbbreviatedIri(NamedInstance source, String abbreviatedRelationIri) {
+		try (var call = ServiceMetrics.call("getLinkedTargetsByAbbreviatedIri", source)) {
+			var resourceSet = source.eResource().getResourceSet();
+			Relation relation = (Relation) MemberCache.getMemberByAbbreviatedIri(resourceSet, abbreviatedRelationIri);
+			return call.result(LinkIndex.get(resourceSet).getTargets(source, relation));
+		}
 	}
 
-	public static void deleteLinkByAbbreviatedIri(NamedInstance source, NamedInstance target, String abbreviatedRelationIri) {
-		Relation relation = (Relation) OmlRead.getMemberByAbbreviatedIri(source.eResource().getResourceSet(), abbreviatedRelationIri);
-		var links = OmlSearch.findLinkAssertionsWithTarget(target).stream().
-				filter(a -> a.getRelation() == relation).
-				filter(a -> OmlRead.getSource(a) == source).
-				collect(Collectors.toList());
-		for (var link : links) {
-			EcoreUtil.delete(link);
+	public static List<ConceptInstance> getRootObjectives(Description description) {
+		try (var call = ServiceMetrics.call("getRootObjectives(Description)", description)) {
+			return call.result(ObjectiveIndex.get(description.eResource().getResourceSet()).getRoots(description));
+		}
+	}
+
+	public static List<ConceptInstance> getRootObjectives(Description description, int offset, int limit) {
+		try (var call = ServiceMetrics.call("getRootObjectives(Description, int, int)", description)) {
+			return call.result(ObjectiveIndex.window(getRootObjectives(description), offset, limit));
+		}
+	}
+
+	public static int getRootObjectiveCount(Description description) {
+		try (var call = ServiceMetrics.call("getRootObjectiveCount", description)) {
+			return call.result(getRootObjectives(description).size());
+		}
+	}
+
+	public static List<ConceptInstance> getAggregatedObjectives(NamedInstance objective) {
+		try (var call = ServiceMetrics.call("getAggregatedObjectives(NamedInstance)", objective)) {
+			return call.result(ObjectiveIndex.get(objective.eResource().getResourceSet()).getChildren(objective));
+		}
+	}
+
+	public static List<ConceptInstance> getAggregatedObjectives(NamedInstance objective, int offset, int limit) {
+		try (var call = ServiceMetrics.call("getAggregatedObjectives(NamedInstance, int, int)", objective)) {
+			return call.result(ObjectiveIndex.window(getAggregatedObjectives(objective), offset, limit));
+		}
+	}
+
+	public static int getAggregatedObjectiveCount(NamedInstance objective) {
+		try (var call = ServiceMetrics.call("getAggregatedObjectiveCount", objective)) {
+			return call.result(getAggregatedObjectives(objective).size());
+		}
+	}
+
+	public static List<ConceptInstance> getObjectives(Description description) {
+		try (var call = ServiceMetrics.call("getObjectives", description)) {
+			return call.result(ObjectiveIndex.get(description.eResource().getResourceSet()).getObjectives(description));
+		}
+	}
+
+	public static Set<ConceptInstance> getAggregationClosure(NamedInstance objective) {
+		try (var call = ServiceMetrics.call("getAggregationClosure", objective)) {
+			return call.result(ObjectiveIndex.get(objective.eResource().getResourceSet()).getClosure(objective));
+		}
+	}
+
+	/**
+	 * Returns the height of the aggregation hierarchy of the given description's
+	 * objectives. With {@link #getAggregationRootCount(Description)} and
+	 * {@link #getAggregationCyclesBroken(Description)}, it is meant to be formatted in a
+	 * label expression, e.g. <code>aql:'depth ' + self.getAggregationDepth() + ', ' +
+	 * self.getAggregationRootCount() + ' roots, ' + self.getAggregationCyclesBroken() +
+	 * ' cycles broken'</code>.
+	 */
+	public static int getAggregationDepth(Description description) {
+		try (var call = ServiceMetrics.call("getAggregationDepth", description)) {
+			return call.result(getAggregationStatistics(description).maxDepth);
+		}
+	}
+
+	/**
+	 * Returns the number of objectives of the given description that no other objective aggregates.
+	 */
+	public static int getAggregationRootCount(Description description) {
+		try (var call = ServiceMetrics.call("getAggregationRootCount", description)) {
+			return call.result(getAggregationStatistics(description).roots);
+		}
+	}
+
+	/**
+	 * Returns the number of aggregation links of the given description's objectives left
+	 * out of the hierarchy because they close a cycle.
+	 */
+	public static int getAggregationCyclesBroken(Description description) {
+		try (var call = ServiceMetrics.call("getAggregationCyclesBroken", description)) {
+			return call.result(getAggregationStatistics(description).cycles);
+		}
+	}
+
+	private static ObjectiveIndex.Statistics getAggregationStatistics(Description description) {
+		return ObjectiveIndex.get(description.eResource().getResourceSet()).getStatistics(description);
+	}
+
+	/**
+	 * Lays out the Objectives Diagram of the given view in the background, placing only
+	 * the objectives not placed yet (see {@link ObjectivesLayout}).
+	 */
+	public static EObject layoutObjectives(EObject view) {
+		try (var call = ServiceMetrics.call("layoutObjectives(EObject)", view)) {
+			return call.result(scheduleLayout(view, false, Collections.emptySet()));
+		}
+	}
+
+	/**
+	 * Lays out the Objectives Diagram of the given view in the background, placing the
+	 * given newly created objective.
+	 */
+	public static EObject layoutObjectives(EObject view, EObject created) {
+		try (var call = ServiceMetrics.call("layoutObjectives(EObject, EObject)", view)) {
+			return call.result(scheduleLayout(view, false, Collections.singleton(created)));
+		}
+	}
+
+	/**
+	 * Lays out all the objectives of the Objectives Diagram of the given view in the
+	 * background, discarding their positions.
+	 */
+	public static EObject relayoutObjectives(EObject view) {
+		try (var call = ServiceMetrics.call("relayoutObjectives", view)) {
+			return call.result(scheduleLayout(view, true, Collections.emptySet()));
+		}
+	}
+
+	/**
+	 * Imports objectives into the given description from the CSV file at the given path,
+	 * in a background job (see {@link ObjectiveImport}).
+	 */
+	public static Description importObjectives(Description description, String path) {
+		try (var call = ServiceMetrics.call("importObjectives", description)) {
+			new ObjectiveImport(description, Paths.get(path)).schedule();
+			return call.result(description);
 		}
 	}
 
 	public static void setForwardRelation(RelationEntity entity, String name) {
-		if (name.equals("")) name = null;
-		if (entity.getForwardRelation() != null && name == null) {
-			EcoreUtil.delete(entity.getForwardRelation());
-		} else if (entity.getForwardRelation() == null && name != null) {
-			var forward = OmlFactory2.INSTANCE.create(ForwardRelation.class);
-			forward.setName(name);
-			entity.setForwardRelation(forward);
-		} else {
-			entity.getForwardRelation().setName(name);
+		try (var call = ServiceMetrics.call("setForwardRelation", entity)) {
+			if (name.equals("")) name = null;
+			if (entity.getForwardRelation() != null && name == null) {
+				EcoreUtil.delete(entity.getForwardRelation());
+			} else if (entity.getForwardRelation() == null && name != null) {
+				var forward = OmlFactory2.INSTANCE.create(ForwardRelation.class);
+				forward.setName(name);
+				entity.setForwardRelation(forward);
+			} else {
+				entity.getForwardRelation().setName(name);
+			}
 		}
 	}
 	
 	public static void setReverseRelation(RelationEntity entity, String name) {
-		if (name.equals("")) name = null;
-		if (entity.getReverseRelation() != null && name == null) {
-			EcoreUtil.delete(entity.getReverseRelation());
-		} else if (entity.getReverseRelation() == null && name != null) {
-			var reverse = OmlFactory2.INSTANCE.create(ReverseRelation.class);
-			reverse.setName(name);
-			entity.setReverseRelation(reverse);
-		} else {
-			entity.getReverseRelation().setName(name);
+		try (var call = ServiceMetrics.call("setReverseRelation", entity)) {
+			if (name.equals("")) name = null;
+			if (entity.getReverseRelation() != null && name == null) {
+				EcoreUtil.delete(entity.getReverseRelation());
+			} else if (entity.getReverseRelation() == null && name != null) {
+				var reverse = OmlFactory2.INSTANCE.create(ReverseRelation.class);
+				reverse.setName(name);
+				entity.setReverseRelation(reverse);
+			} else {
+				entity.getReverseRelation().setName(name);
+			}
 		}
 	}
 
 	public static Set<Entity> getVisualizedEntities(Vocabulary vocabulary) {
-		var entities = new HashSet<Entity>();
-		// direct entities
-		entities.addAll(vocabulary.getOwnedStatements().stream().
-				filter(s -> s instanceof Entity).
-				map(s -> (Entity)s).
-				collect(Collectors.toSet()));
-		// reference entities
-		entities.addAll(vocabulary.getOwnedStatements().stream().
-				filter(s -> s instanceof EntityReference).
-				map(s -> (Entity) OmlRead.resolve((EntityReference)s)).
-				collect(Collectors.toSet()));
-		// specialized entities
-		entities.addAll(vocabulary.getOwnedStatements().stream().
-				filter(s -> s instanceof Entity).
-				map(s -> (Entity)s).
-				flatMap(e -> e.getOwnedSpecializations().stream()).
-				map(s -> (Entity) s.getSpecializedTerm()).
-				collect(Collectors.toSet()));
-		entities.addAll(vocabulary.getOwnedStatements().stream().
-				filter(s -> s instanceof EntityReference).
-				map(s -> (EntityReference)s).
-				flatMap(e -> e.getOwnedSpecializations().stream()).
-				map(s -> (Entity) s.getSpecializedTerm()).
-				collect(Collectors.toSet()));
-		// related entities
-		entities.addAll(vocabulary.getOwnedStatements().stream().
-				filter(e -> e instanceof RelationEntity).
-				map(e -> (RelationEntity)e).
-				flatMap(r -> Stream.of(r.getSource(), r.getTarget())).
-				collect(Collectors.toSet()));
-		// range restricted entities
-		entities.addAll(vocabulary.getOwnedStatements().stream().
-				filter(s -> s instanceof Entity).
-				map(s -> (Entity)s).
-				flatMap(e -> e.getOwnedRelationRestrictions().stream()).
-				filter(r -> r instanceof RelationRangeRestrictionAxiom).
-				map(r -> ((RelationRangeRestrictionAxiom)r).getRange()).
-				collect(Collectors.toSet()));
-		entities.addAll(vocabulary.getOwnedStatements().stream().
-				filter(s -> s instanceof EntityReference).
-				map(s -> (EntityReference)s).
-				flatMap(e -> e.getOwnedRelationRestrictions().stream()).
-				filter(r -> r instanceof RelationRangeRestrictionAxiom).
-				map(r -> ((RelationRangeRestrictionAxiom)r).getRange()).
-				collect(Collectors.toSet()));
-		// cardinality range restricted entities
-		entities.addAll(vocabulary.getOwnedStatements().stream().
-				filter(s -> s instanceof Entity).
-				map(s -> (Entity)s).
-				flatMap(e -> e.getOwnedRelationRestrictions().stream()).
-				filter(r -> r instanceof RelationCardinalityRestrictionAxiom).
-				map(r -> ((RelationCardinalityRestrictionAxiom)r).getRange()).
-				collect(Collectors.toSet()));
-		entities.addAll(vocabulary.getOwnedStatements().stream().
-				filter(s -> s instanceof EntityReference).
-				map(s -> (EntityReference)s).
-				flatMap(e -> e.getOwnedRelationRestrictions().stream()).
-				filter(r -> r instanceof RelationCardinalityRestrictionAxiom).
-				map(r -> ((RelationCardinalityRestrictionAxiom)r).getRange()).
-				collect(Collectors.toSet()));
-		return entities;
+		try (var call = ServiceMetrics.call("getVisualizedEntities", vocabulary)) {
+			Precomputation.track(vocabulary);
+			return call.result(visualized(vocabulary, "getVisualizedEntities", VisualizationCache.getSet(vocabulary, VisualizationCache.ENTITIES, () -> VocabularyIndex.get(vocabulary).getVisualizedEntities())));
+		}
 	}
 
 	public static Set<NamedInstance> getVisualizedNamedInstances(Vocabulary vocabulary) {
-		var instances = new HashSet<NamedInstance>();
-		// target restricted instances
-		instances.addAll(vocabulary.getOwnedStatements().stream().
-				filter(s -> s instanceof Entity).
-				map(s -> (Entity)s).
-				flatMap(e -> e.getOwnedRelationRestrictions().stream()).
-				filter(r -> r instanceof RelationTargetRestrictionAxiom).
-				map(r -> ((RelationTargetRestrictionAxiom)r).getTarget()).
-				collect(Collectors.toSet()));
-		instances.addAll(vocabulary.getOwnedStatements().stream().
-				filter(s -> s instanceof EntityReference).
-				map(s -> (EntityReference)s).
-				flatMap(e -> e.getOwnedRelationRestrictions().stream()).
-				filter(r -> r instanceof RelationTargetRestrictionAxiom).
-				map(r -> ((RelationTargetRestrictionAxiom)r).getTarget()).
-				collect(Collectors.toSet()));
-		return instances;
+		try (var call = ServiceMetrics.call("getVisualizedNamedInstances(Vocabulary)", vocabulary)) {
+			return call.result(visualized(vocabulary, "getVisualizedNamedInstances", VisualizationCache.getSet(vocabulary, VisualizationCache.NAMED_INSTANCES, () -> VocabularyIndex.get(vocabulary).getVisualizedNamedInstances())));
+		}
 	}
 	
 	public static Set<RelationRestrictionAxiom> getVisualizedRestrictions(Vocabulary vocabulary) {
-		var restrictions = new HashSet<RelationRestrictionAxiom>();
-		restrictions.addAll(vocabulary.getOwnedStatements().stream().
-				filter(s -> s instanceof Entity).
-				map(s -> (Entity)s).
-				flatMap(e -> e.getOwnedRelationRestrictions().stream()).
-				collect(Collectors.toSet()));
-		restrictions.addAll(vocabulary.getOwnedStatements().stream().
-				filter(s -> s instanceof EntityReference).
-				map(s -> (EntityReference) s).
-				flatMap(e -> e.getOwnedRelationRestrictions().stream()).
-				collect(Collectors.toSet()));
-		return restrictions;
+		try (var call = ServiceMetrics.call("getVisualizedRestrictions", vocabulary)) {
+			Precomputation.track(vocabulary);
+			return call.result(visualized(vocabulary, "getVisualizedRestrictions", VisualizationCache.getSet(vocabulary, VisualizationCache.RESTRICTIONS, () -> VocabularyIndex.get(vocabulary).getVisualizedRestrictions())));
+		}
 	}
 
 	public static EObject openTextEditor(EObject any) {
-		if (any != null && any.eResource() instanceof XtextResource && any.eResource().getURI() != null) {
-
-			String fileURI = any.eResource().getURI().toPlatformString(true);
-			IFile workspaceFile = ResourcesPlugin.getWorkspace().getRoot().getFile(new Path(fileURI));
-			if (workspaceFile != null) {
-				IWorkbenchPage page = PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage();
-				try {
-					IEditorPart openEditor = IDE.openEditor(page, workspaceFile, "io.opencaesar.oml.dsl.Oml", true);
-					if (openEditor instanceof AbstractTextEditor) {
-						ICompositeNode node = NodeModelUtils.findActualNodeFor(any);
-						if (node != null) {
-							int offset = node.getOffset();
-							int length = node.getTotalEndOffset() - offset;
-							((AbstractTextEditor) openEditor).selectAndReveal(offset, length);
-							System.out.println("Services.openTextEditor()");
+		try (var call = ServiceMetrics.call("openTextEditor", any)) {
+			if (any != null && any.eResource() instanceof XtextResource && any.eResource().getURI() != null) {
+
+				String fileURI = any.eResource().getURI().toPlatformString(true);
+				IFile workspaceFile = ResourcesPlugin.getWorkspace().getRoot().getFile(new Path(fileURI));
+				if (workspaceFile != null) {
+					IWorkbenchPage page = PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage();
+					try {
+						IEditorPart openEditor = IDE.openEditor(page, workspaceFile, "io.opencaesar.oml.dsl.Oml", true);
+						if (openEditor instanceof AbstractTextEditor) {
+							ICompositeNode node = NodeModelUtils.findActualNodeFor(any);
+							if (node != null) {
+								int offset = node.getOffset();
+								int length = node.getTotalEndOffset() - offset;
+								((AbstractTextEditor) openEditor).selectAndReveal(offset, length);
+							}
 						}
+					} catch (PartInitException e) {
+						ViewpointLog.error("openTextEditor", "Can't open the OML editor on " + fileURI, e);
 					}
-					// editorInput.
-				} catch (PartInitException e) {
-					// Put your exception handler here if you wish to.
 				}
 			}
+			ViewpointLog.trace("openTextEditor: " + any);
+			return call.result(any);
 		}
-		System.out.println(any);
-		return any;
 	}
 
 	public static String render(Rule rule) {
-		String antecedeant = rule.getAntecedent().stream().
-				map(p -> render(p)).
-				collect(Collectors.joining(" ^ "));
-		String consequent = rule.getConsequent().stream().
-				map(p -> render(p)).
-				collect(Collectors.joining(" ^ "));
-		return antecedeant + " -> " + consequent;
+		try (var call = ServiceMetrics.call("render(Rule)", rule)) {
+			return call.result(LabelRenderer.get(rule).render(rule));
+		}
 	}
 
 	public static String render(Predicate predicate) {
-		if (predicate instanceof TypePredicate)
-			return render((TypePredicate)predicate);
-		if (predicate instanceof RelationEntityPredicate)
-			return render((RelationEntityPredicate)predicate);
-		if (predicate instanceof FeaturePredicate)
-			return render((FeaturePredicate)predicate);
-		if (predicate instanceof SameAsPredicate)
-			return render((SameAsPredicate)predicate);
-		if (predicate instanceof DifferentFromPredicate)
-			return render((DifferentFromPredicate)predicate);
-		return "";
+		try (var call = ServiceMetrics.call("render(Predicate)", predicate)) {
+			return call.result(LabelRenderer.get(predicate).render(predicate));
+		}
 	}
 
 	public static String render(TypePredicate predicate) {
-		return predicate.getType().getName()+"("+predicate.getVariable()+")";
+		try (var call = ServiceMetrics.call("render(TypePredicate)", predicate)) {
+			return call.result(LabelRenderer.get(predicate).render(predicate));
+		}
 	}
-	
+
 	public static String render(RelationEntityPredicate predicate) {
-		return predicate.getEntity().getName()+"("+predicate.getVariable1()+", "+predicate.getEntityVariable()+ ", "+predicate.getVariable2()+")";
+		try (var call = ServiceMetrics.call("render(RelationEntityPredicate)", predicate)) {
+			return call.result(LabelRenderer.get(predicate).render(predicate));
+		}
 	}
 
 	public static String render(FeaturePredicate predicate) {
-		return predicate.getFeature().getName()+"("+predicate.getVariable1()+", "+predicate.getVariable2()+")";
+		try (var call = ServiceMetrics.call("render(FeaturePredicate)", predicate)) {
+			return call.result(LabelRenderer.get(predicate).render(predicate));
+		}
 	}
 
 	public static String render(SameAsPredicate predicate) {
-		return "SameAs("+predicate.getVariable1()+", "+predicate.getVariable2()+")";
+		try (var call = ServiceMetrics.call("render(SameAsPredicate)", predicate)) {
+			return call.result(LabelRenderer.get(predicate).render(predicate));
+		}
 	}
 
 	public static String render(DifferentFromPredicate predicate) {
-		return "DifferentFrom("+predicate.getVariable1()+", "+predicate.getVariable2()+")";
+		try (var call = ServiceMetrics.call("render(DifferentFromPredicate)", predicate)) {
+			return call.result(LabelRenderer.get(predicate).render(predicate));
+		}
+	}
+
+	public static String render(RelationRestrictionAxiom restriction) {
+		try (var call = ServiceMetrics.call("render(RelationRestrictionAxiom)", restriction)) {
+			return call.result(LabelRenderer.get(restriction).render(restriction));
+		}
+	}
+
+	public static String renderCardinality(RelationCardinalityRestrictionAxiom restriction) {
+		try (var call = ServiceMetrics.call("renderCardinality", restriction)) {
+			return call.result(LabelRenderer.get(restriction).renderCardinality(restriction));
+		}
 	}
 
 	public static String render(ScalarProperty property, Entity entity) {
-		var isKey = entity.getOwnedKeys().stream().anyMatch(k -> k.getProperties().contains(property));
-		return property.getName()+" : "+property.getOntology().getPrefix()+":"+property.getRange().getName()+(property.isFunctional()? " [0..1]": "")+(isKey ? " (key)" : "");
+		try (var call = ServiceMetrics.call("render(ScalarProperty, Entity)", property)) {
+			return call.result(LabelRenderer.get(property).render(property, entity));
+		}
 	}
 
 	public static List<ScalarProperty> getVisualizedScalarProperties(Entity entity, Vocabulary vocabulary) {
-		return vocabulary.getOwnedStatements().stream()
-			.filter(s -> s instanceof ScalarProperty)
-			.map(s -> (ScalarProperty)s)
-			.filter(p -> p.getDomain() == entity)
-			.collect(Collectors.toList());
+		try (var call = ServiceMetrics.call("getVisualizedScalarProperties", entity)) {
+			return call.result(getScalarProperties(entity, vocabulary));
+		}
+	}
+
+	/**
+	 * Returns the scalar properties to show in the given entity's node: none when the
+	 * vocabulary has too many entities to show them with their properties.
+	 */
+	public static List<ScalarProperty> getDetailedScalarProperties(Entity entity, Vocabulary vocabulary) {
+		try (var call = ServiceMetrics.call("getDetailedScalarProperties", entity)) {
+			return call.result(isDetailedVocabulary(vocabulary) ? getScalarProperties(entity, vocabulary) : Collections.<ScalarProperty>emptyList());
+		}
+	}
+
+	public static boolean isDetailed(Vocabulary vocabulary) {
+		try (var call = ServiceMetrics.call("isDetailed", vocabulary)) {
+			return call.result(isDetailedVocabulary(vocabulary));
+		}
+	}
+
+	/**
+	 * Returns the entities owned by the given ontology, sorted by name.
+	 */
+	public static List<Entity> getSortedEntities(Ontology ontology) {
+		try (var call = ServiceMetrics.call("getSortedEntities", ontology)) {
+			if (ontology instanceof Vocabulary) {
+				return call.result(VocabularyIndex.get((Vocabulary) ontology).getSortedEntities());
+			}
+			return call.result(Collections.<Entity>emptyList());
+		}
+	}
+
+	/**
+	 * Returns the concept instances owned by the given ontology, sorted by name, except
+	 * the given one.
+	 */
+	public static List<ConceptInstance> getSortedConceptInstances(Ontology ontology, EObject excluded) {
+		try (var call = ServiceMetrics.call("getSortedConceptInstances", ontology)) {
+			if (!(ontology instanceof Description)) {
+				return call.result(Collections.<ConceptInstance>emptyList());
+			}
+			var instances = DescriptionIndex.get((Description) ontology).getSortedConceptInstances();
+			if (excluded instanceof ConceptInstance && instances.contains(excluded)) {
+				instances = instances.stream().filter(i -> i != excluded).collect(Collectors.toList());
+			}
+			return call.result(instances);
+		}
 	}
 	
 	public static Set<LinkAssertion> getVisualizedLinks(Description description) {
-		var links = new HashSet<LinkAssertion>();
-		links.addAll(description.getOwnedStatements().stream()
-				.filter(s -> s instanceof ConceptInstance)
-				.map(s -> (ConceptInstance)s)
-				.flatMap(ci -> ci.getOwnedLinks().stream())
-				.collect(Collectors.toSet()));
-		links.addAll(description.getOwnedStatements().stream()
-				.filter(s -> s instanceof ConceptInstanceReference)
-				.map(s -> (ConceptInstanceReference)s)
-				.flatMap(ci -> ci.getOwnedLinks().stream())
-				.collect(Collectors.toSet()));
-		return links;
+		try (var call = ServiceMetrics.call("getVisualizedLinks", description)) {
+			Precomputation.track(description);
+			return call.result(visualized(description, "getVisualizedLinks", VisualizationCache.getSet(description, VisualizationCache.LINKS, () -> DescriptionIndex.get(description).getVisualizedLinks())));
+		}
 	}
 
 	public static Set<NamedInstance> getVisualizedNamedInstances(Description description) {
-		var instances = new HashSet<NamedInstance>();
-		// direct instances
-		instances.addAll(description.getOwnedStatements().stream()
-				.filter(s -> s instanceof NamedInstance)
-				.map(s -> (NamedInstance)s)
-				.collect(Collectors.toSet()));
-		// reference instances
-		instances.addAll(description.getOwnedStatements().stream()
-				.filter(s -> s instanceof NamedInstanceReference)
-				.map(s -> (NamedInstance) OmlRead.resolve((NamedInstanceReference)s))
-				.collect(Collectors.toSet()));
-		// related instances
-		instances.addAll(description.getOwnedStatements().stream()
-				.filter(e -> e instanceof RelationInstance)
-				.map(e -> (RelationInstance)e)
-				.flatMap(i -> Stream.of(i.getSources().get(0), i.getTargets().get(0)))
-				.collect(Collectors.toSet()));
-		// linked instances
-		instances.addAll(description.getOwnedStatements().stream()
-				.filter(s -> s instanceof NamedInstance)
-				.map(s -> (NamedInstance)s)
-				.flatMap(i -> i.getOwnedLinks().stream())
-				.map(l -> l.getTarget())
-				.flatMap(i -> (i instanceof RelationInstance) ? 
-						Stream.of(((RelationInstance)i).getSources().get(0),
-								  ((RelationInstance)i).getTargets().get(0),
-								  i) : 
-						Stream.of(i))
-				.collect(Collectors.toSet()));
-		instances.addAll(description.getOwnedStatements().stream()
-				.filter(s -> s instanceof NamedInstanceReference)
-				.map(s -> (NamedInstanceReference) s)
-				.flatMap(i -> i.getOwnedLinks().stream())
-				.map(l -> l.getTarget())
-				.collect(Collectors.toSet()));
-		return instances;
+		try (var call = ServiceMetrics.call("getVisualizedNamedInstances(Description)", description)) {
+			Precomputation.track(description);
+			return call.result(visualized(description, "getVisualizedNamedInstances", VisualizationCache.getSet(description, VisualizationCache.NAMED_INSTANCES, () -> DescriptionIndex.get(description).getVisualizedNamedInstances())));
+		}
 	}
 
 	public static List<ScalarPropertyValueAssertion> getVisualizedScalarPropertyValues(NamedInstance instance, Description description) {
-		if (description.getOwnedStatements().contains(instance)) {
-			return instance.getOwnedPropertyValues().stream()
-				.filter(a -> a instanceof ScalarPropertyValueAssertion)
-				.map(a -> (ScalarPropertyValueAssertion)a)
-				.collect(Collectors.toList());
-		} else {
-			var reference = description.getOwnedStatements().stream()
-				.filter(s -> s instanceof NamedInstanceReference)
-				.map(s -> (NamedInstanceReference)s)
-				.filter(r -> OmlRead.resolve(r) == instance)
-				.findAny().orElse(null);
-			if (reference != null) {
-				return reference.getOwnedPropertyValues().stream()
-						.filter(a -> a instanceof ScalarPropertyValueAssertion)
-						.map(a -> (ScalarPropertyValueAssertion)a)
-						.collect(Collectors.toList());
+		try (var call = ServiceMetrics.call("getVisualizedScalarPropertyValues", instance)) {
+			if (instance.eContainer() == description) {
+				return call.result(instance.getOwnedPropertyValues().stream()
+					.filter(a -> a instanceof ScalarPropertyValueAssertion)
+					.map(a -> (ScalarPropertyValueAssertion)a)
+					.collect(Collectors.toList()));
 			} else {
-				return Collections.emptyList();
+				var reference = getReference(instance, description);
+				if (reference != null) {
+					return call.result(reference.getOwnedPropertyValues().stream()
+							.filter(a -> a instanceof ScalarPropertyValueAssertion)
+							.map(a -> (ScalarPropertyValueAssertion)a)
+							.collect(Collectors.toList()));
+				} else {
+					return call.result(Collections.emptyList());
+				}
 			}
 		}
 	}
 
 	public static String getTypes(ConceptInstance instance, Description description) {
-		if (description.getOwnedStatements().contains(instance)) {
-			return instance.getOwnedTypes().stream()
-				.map(a -> a.getType().getOntology().getPrefix()+":"+a.getType().getName())
-				.collect(Collectors.joining(", "));
-		} else {
-			var reference = description.getOwnedStatements().stream()
-				.filter(s -> s instanceof ConceptInstanceReference)
-				.map(s -> (ConceptInstanceReference)s)
-				.filter(r -> OmlRead.resolve(r) == instance)
-				.findAny().orElse(null);
-			if (reference != null && !reference.getOwnedTypes().isEmpty()) {
-				return reference.getOwnedTypes().stream()
-						.map(a -> a.getType().getOntology().getPrefix()+":"+a.getType().getName())
-						.collect(Collectors.joining(", "));
+		try (var call = ServiceMetrics.call("getTypes(ConceptInstance)", instance)) {
+			if (instance.eContainer() == description) {
+				return call.result(instance.getOwnedTypes().stream()
+					.map(a -> a.getType().getOntology().getPrefix()+":"+a.getType().getName())
+					.collect(Collectors.joining(", ")));
 			} else {
-				String type = instance.getOwnedTypes().stream()
-						.map(a -> a.getType().getOntology().getPrefix()+":"+a.getType().getName())
-						.collect(Collectors.joining(", "));
-				return (type != null) ? type : "concept instance"; 
+				var reference = getReference(instance, description);
+				if (reference instanceof ConceptInstanceReference && !((ConceptInstanceReference)reference).getOwnedTypes().isEmpty()) {
+					return call.result(((ConceptInstanceReference)reference).getOwnedTypes().stream()
+							.map(a -> a.getType().getOntology().getPrefix()+":"+a.getType().getName())
+							.collect(Collectors.joining(", ")));
+				} else {
+					String type = instance.getOwnedTypes().stream()
+							.map(a -> a.getType().getOntology().getPrefix()+":"+a.getType().getName())
+							.collect(Collectors.joining(", "));
+					return call.result((type != null) ? type : "concept instance"); 
+				}
 			}
 		}
 	}
 
 	public static String getTypes(RelationInstance instance, Description description) {
-		if (description.getOwnedStatements().contains(instance)) {
-			return instance.getOwnedTypes().stream()
-				.map(a -> a.getType().getForwardRelation().getName())
-				.collect(Collectors.joining(", "));
-		} else {
-			var reference = description.getOwnedStatements().stream()
-				.filter(s -> s instanceof RelationInstanceReference)
-				.map(s -> (RelationInstanceReference)s)
-				.filter(r -> OmlRead.resolve(r) == instance)
-				.findAny().orElse(null);
-			if (reference != null && !reference.getOwnedTypes().isEmpty()) {
-				return reference.getOwnedTypes().stream()
-						.map(a -> a.getType().getForwardRelation().getName())
-						.collect(Collectors.joining(", "));
+		try (var call = ServiceMetrics.call("getTypes(RelationInstance)", instance)) {
+			if (instance.eContainer() == description) {
+				return call.result(instance.getOwnedTypes().stream()
+					.map(a -> a.getType().getForwardRelation().getName())
+					.collect(Collectors.joining(", ")));
 			} else {
-				String type = instance.getOwnedTypes().stream()
-						.map(a -> a.getType().getForwardRelation().getName())
-						.collect(Collectors.joining(", "));
-				return (type != null) ? type : "relation instance"; 
+				var reference = getReference(instance, description);
+				if (reference instanceof RelationInstanceReference && !((RelationInstanceReference)reference).getOwnedTypes().isEmpty()) {
+					return call.result(((RelationInstanceReference)reference).getOwnedTypes().stream()
+							.map(a -> a.getType().getForwardRelation().getName())
+							.collect(Collectors.joining(", ")));
+				} else {
+					String type = instance.getOwnedTypes().stream()
+							.map(a -> a.getType().getForwardRelation().getName())
+							.collect(Collectors.joining(", "));
+					return call.result((type != null) ? type : "relation instance"); 
+				}
 			}
 		}
 	}
 
 	public static String render(ScalarPropertyValueAssertion assertion) {
-		var value = assertion.getValue();
-		String s = assertion.getProperty().getName()+" : "+OmlRead.getLexicalValue(value);
-		return s + ((value instanceof QuotedLiteral && ((QuotedLiteral)value).getType() != null) ? "^^"+((QuotedLiteral)value).getType().getName() : "");
+		try (var call = ServiceMetrics.call("render(ScalarPropertyValueAssertion)", assertion)) {
+			return call.result(LabelRenderer.get(assertion).render(assertion));
+		}
+	}
+
+	private static EObject scheduleLayout(EObject view, boolean relayout, Collection<? extends EObject> created) {
+		for (var object = view; object != null; object = object.eContainer()) {
+			if (object instanceof DRepresentation) {
+				ObjectivesLayout.schedule((DRepresentation) object, relayout, created);
+				break;
+			}
+		}
+		return view;
 	}
 
+	/**
+	 * Records the given visualization set of the given ontology for the refresh filter.
+	 */
+	private static <T extends Collection<?>> T visualized(Ontology ontology, String service, T elements) {
+		if (!Activator.isHeadless()) {
+			RefreshScope.visualized(ontology, service, elements);
+		}
+		return elements;
+	}
+
+	private static List<ScalarProperty> getScalarProperties(Entity entity, Vocabulary vocabulary) {
+		var snapshot = VisualizationCache.get(vocabulary);
+		List<ScalarProperty> properties = (snapshot != null) ? snapshot.getValues(VisualizationCache.PROPERTIES, entity) : null;
+		return (properties != null) ? properties : VocabularyIndex.get(vocabulary).getScalarProperties(entity);
+	}
+
+	private static boolean isDetailedVocabulary(Vocabulary vocabulary) {
+		var snapshot = VisualizationCache.get(vocabulary);
+		Set<Entity> entities = (snapshot != null) ? snapshot.getSet(VisualizationCache.ENTITIES) : null;
+		return (entities != null) ? entities.size() <= VocabularyIndex.getDetailThreshold() : VocabularyIndex.get(vocabulary).isDetailed();
+	}
+
+	/**
+	 * Returns a local reference to the given instance in the given description, or null if none.
+	 */
+	private static NamedInstanceReference getReference(NamedInstance instance, Description description) {
+		var snapshot = VisualizationCache.get(description);
+		List<NamedInstanceReference> references = (snapshot != null) ? snapshot.getValues(VisualizationCache.REFERENCES, instance) : null;
+		if (references != null) {
+			return references.isEmpty() ? null : references.get(0);
+		}
+		return DescriptionIndex.get(description).getReference(instance);
+	}
 }
@@ -0,0 +1,146 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+
+import io.opencaesar.oml.Description;
+import io.opencaesar.oml.Ontology;
+import io.opencaesar.oml.Vocabulary;
+
+/**
+ * A headless application that writes summaries of OML files (see {@link SummaryExporter}).
+ * It doesn't render the viewpoint's representations, which need a Sirius session and
+ * a display.
+ *
+ * Usage: <code>eclipse -nosplash -application oml-tutorial-viewpoint.summary -input &lt;file or
+ * folder&gt; [-input ...] -output &lt;folder&gt; [-format svg|csv|all] [-threads &lt;n&gt;]</code>
+ *
+ * Each file is loaded in its own resource set and exported on a pool of worker
+ * threads, without the workbench or the Sirius session. One CSV line with the load
+ * and export times is printed per file, followed by the total time.
+ */
+public class SummaryApplication implements IApplication {
+
+	public static final String HEADER = "file,ontology,load_ms,export_ms,outputs";
+
+	private final PrintStream out = System.out;
+
+	@Override
+	public Object start(IApplicationContext context) throws Exception {
+		var args = (String[]) context.getArguments().get(IApplicationContext.APPLICATION_ARGS);
+		var inputs = new ArrayList<Path>();
+		Path output = Paths.get(".");
+		var format = "all";
+		int threads = Runtime.getRuntime().availableProcessors();
+		for (int i = 0; i + 1 < args.length; i++) {
+			switch (args[i]) {
+				case "-input": inputs.add(Paths.get(args[++i])); break;
+				case "-output": output = Paths.get(args[++i]); break;
+				case "-format": format = args[++i]; break;
+				case "-threads": threads = Integer.parseInt(args[++i]); break;
+				default: break;
+			}
+		}
+		if (inputs.isEmpty()) {
+			System.err.println("Usage: -input <file or folder> [-input ...] -output <folder> [-format svg|csv|all] [-threads <n>]");
+			return Integer.valueOf(1);
+		}
+		Files.createDirectories(output);
+
+		var files = new ArrayList<Path>();
+		for (var input : inputs) {
+			files.addAll(findOmlFiles(input));
+		}
+		long start = System.nanoTime();
+		out.println(HEADER);
+		var executor = Executors.newFixedThreadPool(Math.max(1, threads));
+		var results = new ArrayList<Future<String>>();
+		var written = ConcurrentHashMap.<Path>newKeySet();
+		try {
+			for (var file : files) {
+				var directory = output;
+				var exportFormat = format;
+				results.add(executor.submit(() -> export(file, directory, written, exportFormat)));
+			}
+			int failures = 0;
+			for (int i = 0; i < results.size(); i++) {
+				try {
+					out.println(results.get(i).get());
+				} catch (ExecutionException e) {
+					failures++;
+					System.err.println("Can't export " + files.get(i) + ": " + e.getCause());
+				}
+			}
+			out.printf("total,%d files,%.1f ms,%d failures%n", files.size(), (System.nanoTime() - start) / 1e6, failures);
+			return (failures == 0) ? IApplication.EXIT_OK : Integer.valueOf(1);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Override
+	public void stop() {
+	}
+
+	private static List<Path> findOmlFiles(Path input) throws IOException {
+		if (!Files.isDirectory(input)) {
+			return List.of(input);
+		}
+		try (Stream<Path> paths = Files.walk(input)) {
+			return paths
+				.filter(p -> p.toString().endsWith(".oml") || p.toString().endsWith(".omlxmi"))
+				.sorted()
+				.collect(Collectors.toList());
+		}
+	}
+
+	private static String export(Path file, Path output, Set<Path> written, String format) throws IOException {
+		long start = System.nanoTime();
+		var resourceSet = new ResourceSetImpl();
+		var resource = resourceSet.getResource(URI.createFileURI(file.toAbsolutePath().toString()), true);
+		EcoreUtil.resolveAll(resourceSet);
+		long loaded = System.nanoTime();
+
+		var exporter = new SummaryExporter(output, written);
+		var root = resource.getContents().isEmpty() ? null : resource.getContents().get(0);
+		var svg = !"csv".equals(format);
+		var csv = !"svg".equals(format);
+		if (root instanceof Vocabulary && svg) {
+			exporter.exportEntities((Vocabulary) root);
+		} else if (root instanceof Description) {
+			if (svg) {
+				exporter.exportInstances((Description) root);
+				exporter.exportObjectives((Description) root);
+			}
+			if (csv) {
+				exporter.exportObjectivesHierarchy((Description) root);
+			}
+		}
+		long exported = System.nanoTime();
+
+		return String.format("%s,%s,%.1f,%.1f,%d",
+			file,
+			(root instanceof Ontology) ? ((Ontology) root).getNamespace() : "",
+			(loaded - start) / 1e6,
+			(exported - loaded) / 1e6,
+			exporter.getOutputs().size());
+	}
+}
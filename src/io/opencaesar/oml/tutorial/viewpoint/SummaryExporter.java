@@ -0,0 +1,336 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EObject;
+
+import io.opencaesar.oml.Aspect;
+import io.opencaesar.oml.ConceptInstance;
+import io.opencaesar.oml.Description;
+import io.opencaesar.oml.Ontology;
+import io.opencaesar.oml.RelationCardinalityRestrictionAxiom;
+import io.opencaesar.oml.RelationEntity;
+import io.opencaesar.oml.RelationInstance;
+import io.opencaesar.oml.RelationRangeRestrictionAxiom;
+import io.opencaesar.oml.Vocabulary;
+import io.opencaesar.oml.util.OmlRead;
+
+/**
+ * Writes summaries of the models without a workbench: of the entities of a vocabulary,
+ * and of the instances and objectives of a description.
+ *
+ * Summaries are not renderings of the viewpoint's representations: the mappings,
+ * styles, filters and layouts of the odesign are not applied. They list the elements
+ * that the same {@link Services} as the odesign mappings return, as labeled boxes and
+ * edges in SVG with a simple grid layout, and the objectives hierarchy shown by the
+ * Objectives Table as CSV, in the format that {@link ObjectiveImport} reads back.
+ *
+ * Output files are named after the namespace of their ontology, which is unique where
+ * prefixes are not: <code>http://example.com/tutorial/mission#</code> gives
+ * <code>example.com/tutorial/mission.entities.summary.svg</code>. Exporters sharing an output
+ * folder share the set of files written, and fail rather than overwrite one.
+ */
+final class SummaryExporter {
+
+	private final Path directory;
+
+	private final Set<Path> written;
+
+	private final List<Path> outputs = new ArrayList<>();
+
+	/**
+	 * Creates an exporter to the given folder, recording the files it writes in the
+	 * given thread-safe set.
+	 */
+	SummaryExporter(Path directory, Set<Path> written) {
+		this.directory = directory;
+		this.written = written;
+	}
+
+	/**
+	 * Returns the files written so far.
+	 */
+	List<Path> getOutputs() {
+		return outputs;
+	}
+
+	void exportEntities(Vocabulary vocabulary) throws IOException {
+		var diagram = new Diagram();
+		for (var entity : Services.getVisualizedEntities(vocabulary)) {
+			if (entity instanceof RelationEntity) {
+				continue;
+			}
+			var lines = new ArrayList<String>();
+			lines.add((entity instanceof Aspect ? "<<aspect>> " : "") + entity.getName());
+			for (var property : Services.getVisualizedScalarProperties(entity, vocabulary)) {
+				lines.add(Services.render(property, entity));
+			}
+			diagram.node(entity, lines);
+		}
+		for (var entity : Services.getVisualizedEntities(vocabulary)) {
+			for (var specialization : entity.getOwnedSpecializations()) {
+				diagram.edge(entity, specialization.getSpecializedTerm(), "", true);
+			}
+			if (entity instanceof RelationEntity) {
+				var relation = (RelationEntity) entity;
+				var name = (relation.getForwardRelation() != null) ? relation.getForwardRelation().getName() : relation.getName();
+				diagram.edge(relation.getSource(), relation.getTarget(), name, false);
+			}
+		}
+		for (var restriction : Services.getVisualizedRestrictions(vocabulary)) {
+			var restricted = restriction.eContainer();
+			if (restriction instanceof RelationRangeRestrictionAxiom) {
+				var range = (RelationRangeRestrictionAxiom) restriction;
+				diagram.edge(restricted, range.getRange(), range.getRelation().getName(), false);
+			} else if (restriction instanceof RelationCardinalityRestrictionAxiom) {
+				var cardinality = (RelationCardinalityRestrictionAxiom) restriction;
+				diagram.edge(restricted, cardinality.getRange(), cardinality.getRelation().getName(), false);
+			}
+		}
+		write(vocabulary, ".entities.summary.svg", diagram);
+	}
+
+	void exportInstances(Description description) throws IOException {
+		var diagram = new Diagram();
+		for (var instance : Services.getVisualizedNamedInstances(description)) {
+			if (instance instanceof ConceptInstance) {
+				var lines = new ArrayList<String>();
+				lines.add(instance.getName() + " : " + Services.getTypes((ConceptInstance) instance, description));
+				for (var value : Services.getVisualizedScalarPropertyValues(instance, description)) {
+					lines.add(Services.render(value));
+				}
+				diagram.node(instance, lines);
+			}
+		}
+		for (var instance : Services.getVisualizedNamedInstances(description)) {
+			if (instance instanceof RelationInstance) {
+				var relation = (RelationInstance) instance;
+				if (!relation.getSources().isEmpty() && !relation.getTargets().isEmpty()) {
+					diagram.edge(relation.getSources().get(0), relation.getTargets().get(0), Services.getTypes(relation, description), false);
+				}
+			}
+		}
+		for (var link : Services.getVisualizedLinks(description)) {
+			diagram.edge(OmlRead.getSource(link), link.getTarget(), link.getRelation().getName(), false);
+		}
+		write(description, ".instances.summary.svg", diagram);
+	}
+
+	void exportObjectives(Description description) throws IOException {
+		var objectives = Services.getObjectives(description);
+		if (objectives.isEmpty()) {
+			return;
+		}
+		var diagram = new Diagram();
+		for (var objective : objectives) {
+			diagram.node(objective, List.of(objective.getName()));
+		}
+		for (var objective : objectives) {
+			for (var aggregated : Services.getAggregatedObjectives(objective)) {
+				diagram.edge(objective, aggregated, "aggregates", false);
+			}
+		}
+		write(description, ".objectives.summary.svg", diagram);
+	}
+
+	void exportObjectivesHierarchy(Description description) throws IOException {
+		var roots = Services.getRootObjectives(description);
+		if (roots.isEmpty()) {
+			return;
+		}
+		var file = claim(description, ".objectives.csv");
+		try (var out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			out.write("objective,parent,level,id,canonical_name\n");
+			for (var root : roots) {
+				writeRows(out, root, null, 0);
+			}
+		}
+		outputs.add(file);
+	}
+
+	private void writeRows(Writer out, ConceptInstance objective, ConceptInstance parent, int level) throws IOException {
+		out.write(csv(objective.getName()) + "," +
+			csv(parent != null ? parent.getName() : "") + "," +
+			level + "," +
+			csv(Services.getScalarPropertyLexicalValue(objective, "base:hasIdentifier")) + "," +
+			csv(Services.getScalarPropertyLexicalValue(objective, "base:hasCanonicalName")) + "\n");
+		for (var aggregated : Services.getAggregatedObjectives(objective)) {
+			writeRows(out, aggregated, objective, level + 1);
+		}
+	}
+
+	private static String csv(String value) {
+		if (value == null) {
+			return "";
+		}
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	/**
+	 * Returns the output file of the given ontology with the given suffix, creating its
+	 * folder, or fails if another ontology already has it.
+	 */
+	private Path claim(Ontology ontology, String suffix) throws IOException {
+		var file = directory.resolve(getBaseName(ontology) + suffix).normalize();
+		if (!written.add(file)) {
+			throw new IOException(file + " is also the output of another ontology with namespace " + ontology.getNamespace());
+		}
+		Files.createDirectories(file.getParent());
+		return file;
+	}
+
+	/**
+	 * Returns the namespace of the given ontology as a relative path: without its scheme
+	 * and trailing separator, one folder per segment, other characters than letters,
+	 * digits, dots, dashes and underscores replaced by underscores.
+	 */
+	private static String getBaseName(Ontology ontology) {
+		var namespace = ontology.getNamespace();
+		if (namespace == null || namespace.isEmpty()) {
+			return ontology.getPrefix();
+		}
+		int scheme = namespace.indexOf("://");
+		var path = (scheme >= 0) ? namespace.substring(scheme + 3) : namespace;
+		var name = new StringBuilder(path.length());
+		for (var segment : path.split("[/#]")) {
+			if (segment.isEmpty() || segment.equals(".") || segment.equals("..")) {
+				continue;
+			}
+			if (name.length() > 0) {
+				name.append('/');
+			}
+			name.append(segment.replaceAll("[^A-Za-z0-9._-]", "_"));
+		}
+		return (name.length() > 0) ? name.toString() : ontology.getPrefix();
+	}
+
+	private void write(Ontology ontology, String suffix, Diagram diagram) throws IOException {
+		var file = claim(ontology, suffix);
+		try (var out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			diagram.write(out);
+		}
+		outputs.add(file);
+	}
+
+	/**
+	 * A summary of labeled boxes and edges, laid out in a grid.
+	 */
+	private static final class Diagram {
+		private static final int CHAR_WIDTH = 7;
+		private static final int LINE_HEIGHT = 16;
+		private static final int PADDING = 8;
+		private static final int GAP = 60;
+
+		private final Map<EObject, Box> boxes = new LinkedHashMap<>();
+		private final List<Edge> edges = new ArrayList<>();
+
+		void node(EObject element, List<String> lines) {
+			boxes.put(element, new Box(lines));
+		}
+
+		void edge(EObject source, EObject target, String label, boolean specialization) {
+			if (source != null && target != null) {
+				edges.add(new Edge(source, target, label, specialization));
+			}
+		}
+
+		void write(Writer out) throws IOException {
+			int columns = Math.max(1, (int) Math.ceil(Math.sqrt(boxes.size())));
+			int cellWidth = 0;
+			int cellHeight = 0;
+			for (var box : boxes.values()) {
+				cellWidth = Math.max(cellWidth, box.width);
+				cellHeight = Math.max(cellHeight, box.height);
+			}
+			int i = 0;
+			for (var box : boxes.values()) {
+				box.x = GAP + (i % columns) * (cellWidth + GAP);
+				box.y = GAP + (i / columns) * (cellHeight + GAP);
+				i++;
+			}
+			int rows = (boxes.size() + columns - 1) / columns;
+			int width = GAP + columns * (cellWidth + GAP);
+			int height = GAP + rows * (cellHeight + GAP);
+
+			out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width + "\" height=\"" + height + "\" font-family=\"sans-serif\" font-size=\"12\">\n");
+			out.write("<defs><marker id=\"arrow\" markerWidth=\"10\" markerHeight=\"10\" refX=\"10\" refY=\"5\" orient=\"auto\"><path d=\"M0,0 L10,5 L0,10\" fill=\"none\" stroke=\"black\"/></marker>");
+			out.write("<marker id=\"triangle\" markerWidth=\"12\" markerHeight=\"12\" refX=\"12\" refY=\"6\" orient=\"auto\"><path d=\"M0,0 L12,6 L0,12 z\" fill=\"white\" stroke=\"black\"/></marker></defs>\n");
+			for (var edge : edges) {
+				var source = boxes.get(edge.source);
+				var target = boxes.get(edge.target);
+				if (source == null || target == null) {
+					continue;
+				}
+				int x1 = source.x + source.width / 2, y1 = source.y + source.height / 2;
+				int x2 = target.x + target.width / 2, y2 = target.y + target.height / 2;
+				var marker = edge.specialization ? "triangle" : "arrow";
+				out.write("<line x1=\"" + x1 + "\" y1=\"" + y1 + "\" x2=\"" + x2 + "\" y2=\"" + y2 + "\" stroke=\"black\" marker-end=\"url(#" + marker + ")\"/>\n");
+				if (!edge.label.isEmpty()) {
+					out.write("<text x=\"" + (x1 + x2) / 2 + "\" y=\"" + (y1 + y2) / 2 + "\">" + escape(edge.label) + "</text>\n");
+				}
+			}
+			for (var box : boxes.values()) {
+				out.write("<rect x=\"" + box.x + "\" y=\"" + box.y + "\" width=\"" + box.width + "\" height=\"" + box.height + "\" fill=\"#fffbe6\" stroke=\"black\"/>\n");
+				for (int l = 0; l < box.lines.size(); l++) {
+					var weight = (l == 0) ? " font-weight=\"bold\"" : "";
+					out.write("<text x=\"" + (box.x + PADDING) + "\" y=\"" + (box.y + PADDING + (l + 1) * LINE_HEIGHT - 4) + "\"" + weight + ">" + escape(box.lines.get(l)) + "</text>\n");
+				}
+			}
+			out.write("</svg>\n");
+		}
+
+		private static String escape(String text) {
+			return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+		}
+
+		/**
+		 * A labeled edge between two elements.
+		 */
+		private static final class Edge {
+			final EObject source;
+			final EObject target;
+			final String label;
+			final boolean specialization;
+
+			Edge(EObject source, EObject target, String label, boolean specialization) {
+				this.source = source;
+				this.target = target;
+				this.label = (label != null) ? label : "";
+				this.specialization = specialization;
+			}
+		}
+
+		/**
+		 * A labeled box.
+		 */
+		private static final class Box {
+			final List<String> lines;
+			final int width;
+			final int height;
+			int x;
+			int y;
+
+			Box(List<String> lines) {
+				this.lines = lines;
+				int length = 0;
+				for (var line : lines) {
+					length = Math.max(length, line.length());
+				}
+				width = 2 * PADDING + length * CHAR_WIDTH;
+				height = 2 * PADDING + lines.size() * LINE_HEIGHT;
+			}
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+/**
+ * The log of the viewpoint.
+ *
+ * Messages are grouped by a key (usually the service that logs them) and at most
+ * {@link #LIMIT} messages per key are logged in any {@link #WINDOW_MILLIS} window;
+ * the number of suppressed messages is logged when the next window opens. Messages
+ * are written by a background thread, so logging never blocks the caller (typically
+ * the UI thread).
+ */
+final class ViewpointLog {
+
+	static final int LIMIT = 5;
+
+	static final long WINDOW_MILLIS = 60_000;
+
+	private static final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+	private static final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+		var thread = new Thread(r, "oml-tutorial-viewpoint log");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private ViewpointLog() {
+	}
+
+	static void info(String key, String message) {
+		log(key, IStatus.INFO, message, null);
+	}
+
+	static void warning(String key, String message) {
+		log(key, IStatus.WARNING, message, null);
+	}
+
+	static void error(String key, String message, Throwable exception) {
+		log(key, IStatus.ERROR, message, exception);
+	}
+
+	/**
+	 * Logs the given message only when the plugin runs with its debug option on.
+	 */
+	static void trace(String message) {
+		var plugin = Activator.getDefault();
+		if (plugin != null && plugin.isDebugging()) {
+			log("trace", IStatus.INFO, message, null);
+		}
+	}
+
+	private static void log(String key, int severity, String message, Throwable exception) {
+		var window = windows.computeIfAbsent(key, k -> new Window());
+		int suppressed;
+		synchronized (window) {
+			long now = System.currentTimeMillis();
+			if (now - window.start >= WINDOW_MILLIS) {
+				suppressed = window.suppressed;
+				window.start = now;
+				window.count = 0;
+				window.suppressed = 0;
+			} else {
+				suppressed = 0;
+			}
+			if (window.count >= LIMIT) {
+				window.suppressed++;
+				return;
+			}
+			window.count++;
+		}
+		var statusMessage = (suppressed > 0) ? message + " (" + suppressed + " similar messages suppressed)" : message;
+		writer.execute(() -> write(new Status(severity, Activator.PLUGIN_ID, "[" + key + "] " + statusMessage, exception)));
+	}
+
+	private static void write(IStatus status) {
+		var plugin = Activator.getDefault();
+		if (plugin != null) {
+			plugin.getLog().log(status);
+		} else {
+			System.err.println(status);
+			if (status.getException() != null) {
+				status.getException().printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * The rate limiting window of a key.
+	 */
+	private static final class Window {
+		long start;
+		int count;
+		int suppressed;
+	}
+}
@@ -0,0 +1,183 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.acceleo.query.runtime.Query;
+import org.eclipse.acceleo.query.runtime.impl.QueryBuilderEngine;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.emf.common.util.Diagnostic;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.sirius.business.api.componentization.ViewpointRegistry;
+import org.eclipse.sirius.business.api.session.Session;
+import org.eclipse.sirius.business.api.session.SessionListener;
+import org.eclipse.sirius.business.api.session.SessionManager;
+import org.eclipse.sirius.business.api.session.SessionManagerListener;
+import org.eclipse.sirius.viewpoint.description.Viewpoint;
+
+import io.opencaesar.oml.OmlPackage;
+
+/**
+ * Registers the viewpoints of the odesign lazily, when the first OML resource is loaded
+ * in a session, instead of when the plugin starts: when a session with OML resources is
+ * added or opened, or when OML resources are added to an open session (such as a new
+ * modeling project, whose viewpoints can be selected once it has an OML resource).
+ *
+ * Once registered, a background job parses every AQL expression of the odesign. The
+ * resulting ASTs are not kept (the Sirius interpreter keeps its own), but parsing loads
+ * the AQL parser classes and fills its shared lexer and parser caches, so the first
+ * diagram open does not pay for them; expressions that don't parse are logged.
+ *
+ * The time spent registering and parsing is logged as a startup report and recorded
+ * in the {@link ServiceMetrics}.
+ */
+final class ViewpointRegistration extends SessionManagerListener.Stub {
+
+	static final String ODESIGN = Activator.PLUGIN_ID + "/description/oml-tutorial-viewpoint.odesign";
+
+	private static final String AQL = "aql:";
+
+	private final Set<Viewpoint> viewpoints = new HashSet<>();
+
+	private final long activated = System.nanoTime();
+
+	private volatile boolean registered;
+
+	private long registrationStart;
+
+	private long registrationNanos;
+
+	/**
+	 * Registers the viewpoints now if a session already has OML resources, or when one
+	 * loads them.
+	 */
+	void install() {
+		SessionManager.INSTANCE.addSessionsListener(this);
+		for (var session : SessionManager.INSTANCE.getSessions()) {
+			notifyAddSession(session);
+		}
+	}
+
+	/**
+	 * Stops listening to sessions and disposes the registered viewpoints.
+	 */
+	synchronized void dispose() {
+		SessionManager.INSTANCE.removeSessionsListener(this);
+		for (var viewpoint : viewpoints) {
+			ViewpointRegistry.getInstance().disposeFromPlugin(viewpoint);
+		}
+		viewpoints.clear();
+		registered = false;
+	}
+
+	@Override
+	public void notifyAddSession(Session session) {
+		if (!registered && canUse(session)) {
+			register();
+		}
+	}
+
+	@Override
+	public void notify(Session session, int notification) {
+		if ((notification == SessionListener.OPENED || notification == SessionListener.SEMANTIC_CHANGE) && !registered && canUse(session)) {
+			register();
+		}
+	}
+
+	/**
+	 * Whether the given session has OML resources.
+	 */
+	private static boolean canUse(Session session) {
+		Collection<Resource> resources = session.getSemanticResources();
+		for (var resource : resources) {
+			if (ModelChanges.isOml(resource)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private synchronized void register() {
+		if (registered) {
+			return;
+		}
+		registrationStart = System.nanoTime();
+		try (var call = ServiceMetrics.call("startup:registerViewpoints", null)) {
+			viewpoints.addAll(call.result(ViewpointRegistry.getInstance().registerFromPlugin(ODESIGN)));
+		}
+		registrationNanos = System.nanoTime() - registrationStart;
+		registered = true;
+		if (!viewpoints.isEmpty()) {
+			new PrecompileJob(viewpoints.iterator().next().eResource()).schedule();
+		}
+	}
+
+	/**
+	 * Parses the AQL expressions of the odesign in the background.
+	 */
+	private final class PrecompileJob extends Job {
+		private final Resource odesign;
+
+		PrecompileJob(Resource odesign) {
+			super("Precompiling the OML viewpoint expressions");
+			this.odesign = odesign;
+			setSystem(true);
+			setPriority(Job.DECORATE);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			long start = System.nanoTime();
+			int errors = 0;
+			Set<String> expressions = collectExpressions(odesign);
+			try (var call = ServiceMetrics.call("startup:precompileExpressions", null)) {
+				var environment = Query.newEnvironmentWithDefaultServices(null);
+				environment.registerEPackage(OmlPackage.eINSTANCE);
+				var builder = new QueryBuilderEngine(environment);
+				for (var expression : expressions) {
+					if (monitor.isCanceled()) {
+						return Status.CANCEL_STATUS;
+					}
+					var result = builder.build(expression);
+					if (result.getDiagnostic().getSeverity() >= Diagnostic.ERROR) {
+						errors++;
+						ViewpointLog.warning("startup", "Can't parse the odesign expression " + AQL + expression + ": " + result.getDiagnostic().getMessage());
+					}
+				}
+				call.result(expressions);
+			} catch (RuntimeException e) {
+				ViewpointLog.error("startup", "Can't precompile the odesign expressions", e);
+			}
+			long compileNanos = System.nanoTime() - start;
+			ViewpointLog.info("startup", String.format(
+					"Viewpoint startup: registered %.1f ms after activation in %.1f ms, %d AQL expressions precompiled in %.1f ms, %d errors",
+					(registrationStart - activated) / 1e6,
+					registrationNanos / 1e6,
+					expressions.size(),
+					compileNanos / 1e6,
+					errors));
+			return Status.OK_STATUS;
+		}
+
+		private Set<String> collectExpressions(Resource resource) {
+			var expressions = new LinkedHashSet<String>();
+			resource.getAllContents().forEachRemaining(object -> {
+				for (EAttribute attribute : object.eClass().getEAllAttributes()) {
+					if (!attribute.isMany() && attribute.getEAttributeType().getInstanceClass() == String.class) {
+						var value = object.eGet(attribute);
+						if (value instanceof String && ((String) value).startsWith(AQL)) {
+							expressions.add(((String) value).substring(AQL.length()));
+						}
+					}
+				}
+			});
+			return expressions;
+		}
+	}
+}
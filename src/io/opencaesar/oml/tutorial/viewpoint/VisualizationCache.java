@@ -0,0 +1,599 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.eclipse.emf.common.command.Command;
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.URIConverter;
+import org.eclipse.emf.transaction.NotificationFilter;
+import org.eclipse.emf.transaction.ResourceSetChangeEvent;
+import org.eclipse.emf.transaction.ResourceSetListenerImpl;
+import org.eclipse.emf.transaction.TransactionalEditingDomain;
+import org.eclipse.emf.transaction.util.TransactionUtil;
+
+import io.opencaesar.oml.Description;
+import io.opencaesar.oml.Ontology;
+import io.opencaesar.oml.Vocabulary;
+
+/**
+ * A persistent cache of the visualization sets of the ontologies, kept in the plugin
+ * state location across sessions, so that the diagrams of unchanged models open
+ * without classifying their statements and resolving their references.
+ *
+ * Each ontology resource has a file, named after its URI, holding the URIs, file time
+ * stamps and file lengths of the resources its sets depend on, followed by sections of
+ * element URIs (each a resource number and a fragment): the visualized sets, the scalar
+ * properties by domain of a vocabulary, and the local references to instances of a
+ * description.
+ *
+ * A file is read through a memory mapping the first time an ontology is visualized in
+ * a session, and only used if every resource it depends on is already loaded, saved,
+ * and its file has the time stamp and length it was written with: validating a file
+ * reads no model file and loads no resource. It is then used until the first change to
+ * one of these resources (see {@link Entry}) or until an index is built for the
+ * ontology. When no valid file exists, the sets are computed by the index, and encoded
+ * and written in the background, in a read-only transaction. The cache isn't used by
+ * the headless model summary.
+ */
+final class VisualizationCache {
+
+	static final String ENTITIES = "entities";
+
+	static final String NAMED_INSTANCES = "namedInstances";
+
+	static final String RESTRICTIONS = "restrictions";
+
+	static final String PROPERTIES = "propertiesByDomain";
+
+	static final String LINKS = "links";
+
+	static final String REFERENCES = "references";
+
+	private static final Set<String> PAIRS = Set.of(PROPERTIES, REFERENCES);
+
+	private static final Map<String, ?> ATTRIBUTE_OPTIONS = Map.of(URIConverter.OPTION_REQUESTED_ATTRIBUTES,
+			Set.of(URIConverter.ATTRIBUTE_TIME_STAMP, URIConverter.ATTRIBUTE_LENGTH));
+
+	private static final int MAGIC = 0x4F4D4C56;
+
+	private static final int VERSION = 2;
+
+	private static volatile Optional<Path> directory;
+
+	private static ExecutorService writer;
+
+	private VisualizationCache() {
+	}
+
+	/**
+	 * Returns the given section of the cached sets of the given ontology, or computes
+	 * it if the cache can't be used.
+	 */
+	static <T> Set<T> getSet(Ontology ontology, String section, Supplier<Set<T>> compute) {
+		var snapshot = get(ontology);
+		Set<T> set = (snapshot != null) ? snapshot.getSet(section) : null;
+		return (set != null) ? set : compute.get();
+	}
+
+	/**
+	 * Returns the valid cached sets of the given ontology, or null if the cache can't be
+	 * used for it.
+	 */
+	static Snapshot get(Ontology ontology) {
+		var resource = ontology.eResource();
+		if (resource == null || resource.getResourceSet() == null || resource.isModified() || isIndexed(ontology)) {
+			return null;
+		}
+		var entry = Entry.get(resource);
+		synchronized (entry) {
+			if (!entry.loaded) {
+				var directory = getDirectory();
+				if (directory == null) {
+					return null;
+				}
+				try (var call = ServiceMetrics.call("cache:load", ontology)) {
+					entry.load(call.result(load(directory.resolve(getFileName(resource.getURI())), ontology)));
+				}
+			}
+			var snapshot = entry.snapshot;
+			if (snapshot != null && snapshot.ontology == ontology && snapshot.isCurrent()) {
+				return snapshot;
+			}
+			entry.drop();
+		}
+		var directory = getDirectory();
+		if (directory != null) {
+			store(directory, ontology);
+		}
+		return null;
+	}
+
+	/**
+	 * Waits for the pending writes and stops the writer, which is started again by the
+	 * next write.
+	 */
+	static void shutdown() {
+		ExecutorService stopped;
+		synchronized (VisualizationCache.class) {
+			stopped = writer;
+			writer = null;
+		}
+		if (stopped != null) {
+			stopped.shutdown();
+			try {
+				stopped.awaitTermination(2, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static synchronized ExecutorService getWriter() {
+		if (writer == null) {
+			writer = Executors.newSingleThreadExecutor(r -> {
+				var thread = new Thread(r, "oml-tutorial-viewpoint visualization cache");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			});
+		}
+		return writer;
+	}
+
+	private static boolean isIndexed(Ontology ontology) {
+		for (Adapter adapter : ontology.eAdapters()) {
+			if (adapter instanceof VocabularyIndex || adapter instanceof DescriptionIndex) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the cache folder, resolved once, or null if there is no plugin state location
+	 * or the plugin runs headless.
+	 */
+	private static Path getDirectory() {
+		var resolved = directory;
+		if (resolved == null) {
+			var plugin = Activator.getDefault();
+			if (plugin == null || Activator.isHeadless()) {
+				return null;
+			}
+			try {
+				var path = plugin.getStateLocation().append("visualization").toFile().toPath();
+				Files.createDirectories(path);
+				resolved = Optional.of(path);
+			} catch (IOException | IllegalStateException e) {
+				ViewpointLog.warning("visualizationCache", "Can't create the visualization cache folder: " + e);
+				resolved = Optional.empty();
+			}
+			directory = resolved;
+		}
+		return resolved.orElse(null);
+	}
+
+	private static String getFileName(URI uri) {
+		return UUID.nameUUIDFromBytes(uri.toString().getBytes(StandardCharsets.UTF_8)) + ".bin";
+	}
+
+	/**
+	 * Returns the time stamp and length of the file of the resource with the given URI,
+	 * or null if they aren't known.
+	 */
+	private static long[] getAttributes(ResourceSet resourceSet, URI uri) {
+		var attributes = resourceSet.getURIConverter().getAttributes(uri, ATTRIBUTE_OPTIONS);
+		var timeStamp = attributes.get(URIConverter.ATTRIBUTE_TIME_STAMP);
+		var length = attributes.get(URIConverter.ATTRIBUTE_LENGTH);
+		if (!(timeStamp instanceof Long) || !(length instanceof Long)) {
+			return null;
+		}
+		return new long[] { (Long) timeStamp, (Long) length };
+	}
+
+	private static Snapshot load(Path file, Ontology ontology) {
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				return null;
+			}
+			var resourceSet = ontology.eResource().getResourceSet();
+			var resources = new Resource[buffer.getInt()];
+			for (int i = 0; i < resources.length; i++) {
+				var uri = URI.createURI(readString(buffer));
+				var timeStamp = buffer.getLong();
+				var length = buffer.getLong();
+				if (i == 0 && !uri.equals(ontology.eResource().getURI())) {
+					return null;
+				}
+				resources[i] = (i == 0) ? ontology.eResource() : resourceSet.getResource(uri, false);
+				if (resources[i] == null || !resources[i].isLoaded() || resources[i].isModified()) {
+					return null;
+				}
+				var attributes = getAttributes(resourceSet, uri);
+				if (attributes == null || attributes[0] != timeStamp || attributes[1] != length) {
+					return null;
+				}
+			}
+			var snapshot = new Snapshot(ontology, resources);
+			int sections = buffer.getInt();
+			for (int s = 0; s < sections; s++) {
+				var name = readString(buffer);
+				int count = buffer.getInt();
+				var elements = new ArrayList<EObject>(count);
+				for (int i = 0; i < count; i++) {
+					var resource = resources[buffer.getInt()];
+					var element = resource.getEObject(readString(buffer));
+					if (element == null) {
+						return null;
+					}
+					elements.add(element);
+				}
+				snapshot.put(name, elements);
+			}
+			return snapshot;
+		} catch (IOException | RuntimeException e) {
+			ViewpointLog.warning("visualizationCache", "Can't read the visualization cache " + file + ": " + e);
+			return null;
+		}
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		var bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Computes the sets of the given ontology with its index and, if its resources are
+	 * still saved when the writer gets to them, encodes and writes them in the background.
+	 */
+	private static void store(Path directory, Ontology ontology) {
+		try (var call = ServiceMetrics.call("cache:store", ontology)) {
+			var encoder = new Encoder(ontology.eResource());
+			if (ontology instanceof Vocabulary) {
+				var index = VocabularyIndex.get((Vocabulary) ontology);
+				encoder.section(ENTITIES, index.getVisualizedEntities());
+				encoder.section(NAMED_INSTANCES, index.getVisualizedNamedInstances());
+				encoder.section(RESTRICTIONS, index.getVisualizedRestrictions());
+				encoder.pairs(PROPERTIES, index.getScalarPropertiesByDomain());
+			} else if (ontology instanceof Description) {
+				var index = DescriptionIndex.get((Description) ontology);
+				encoder.section(NAMED_INSTANCES, index.getVisualizedNamedInstances());
+				encoder.section(LINKS, index.getVisualizedLinks());
+				encoder.pairs(REFERENCES, index.getReferences());
+			}
+			call.result(encoder.size());
+			var file = directory.resolve(getFileName(ontology.eResource().getURI()));
+			getWriter().execute(() -> write(file, encoder));
+		} catch (RuntimeException e) {
+			ViewpointLog.warning("visualizationCache", "Can't cache the visualization sets of " + ontology.getNamespace() + ": " + e);
+		}
+	}
+
+	private static void write(Path file, Encoder encoder) {
+		try {
+			var bytes = encoder.encode();
+			if (bytes == null) {
+				return;
+			}
+			var temporary = Files.createTempFile(file.getParent(), "visualization", ".tmp");
+			Files.write(temporary, bytes);
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException | RuntimeException e) {
+			ViewpointLog.warning("visualizationCache", "Can't write the visualization cache " + file + ": " + e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * The cache state of an ontology resource, kept in an adapter of the resource so that
+	 * it is collected with it.
+	 *
+	 * Once loaded, the snapshot is dropped on the first change of the resource itself,
+	 * and, through a listener of the editing domain, on the first change to any resource
+	 * it depends on: the listener is called before the triggers of the transaction, so
+	 * before the Sirius refresh that follows an edit.
+	 */
+	private static final class Entry extends AdapterImpl {
+		boolean loaded;
+		Snapshot snapshot;
+		private Listener listener;
+
+		static Entry get(Resource resource) {
+			synchronized (resource) {
+				for (Adapter adapter : resource.eAdapters()) {
+					if (adapter instanceof Entry) {
+						return (Entry) adapter;
+					}
+				}
+				var entry = new Entry();
+				resource.eAdapters().add(entry);
+				return entry;
+			}
+		}
+
+		synchronized void load(Snapshot snapshot) {
+			loaded = true;
+			this.snapshot = snapshot;
+			var domain = (snapshot != null) ? TransactionUtil.getEditingDomain(snapshot.ontology) : null;
+			if (domain != null) {
+				listener = new Listener(this, domain, snapshot.resources);
+				domain.addResourceSetListener(listener);
+			}
+		}
+
+		synchronized void drop() {
+			snapshot = null;
+			if (listener != null) {
+				listener.domain.removeResourceSetListener(listener);
+				listener = null;
+			}
+		}
+
+		@Override
+		public void notifyChanged(Notification notification) {
+			if (!notification.isTouch()) {
+				drop();
+			}
+		}
+	}
+
+	/**
+	 * Drops the snapshot of an entry when a transaction changes a resource it depends on.
+	 */
+	private static final class Listener extends ResourceSetListenerImpl {
+		final TransactionalEditingDomain domain;
+		private final Entry entry;
+		private final Set<Resource> resources = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		Listener(Entry entry, TransactionalEditingDomain domain, Resource[] resources) {
+			super(NotificationFilter.NOT_TOUCH);
+			this.entry = entry;
+			this.domain = domain;
+			this.resources.addAll(Arrays.asList(resources));
+		}
+
+		@Override
+		public boolean isPrecommitOnly() {
+			return true;
+		}
+
+		@Override
+		public Command transactionAboutToCommit(ResourceSetChangeEvent event) {
+			for (var notification : event.getNotifications()) {
+				var notifier = notification.getNotifier();
+				var resource = (notifier instanceof Resource) ? (Resource) notifier : (notifier instanceof EObject) ? ((EObject) notifier).eResource() : null;
+				if (resource != null && resources.contains(resource)) {
+					entry.drop();
+					break;
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * The cached sets of an ontology, decoded from its file.
+	 */
+	static final class Snapshot {
+		private final Ontology ontology;
+		private final Resource[] resources;
+		private final long[] stamps;
+		private final Map<String, Set<EObject>> sets = new HashMap<>();
+		private final Map<String, Map<EObject, List<EObject>>> pairs = new HashMap<>();
+
+		Snapshot(Ontology ontology, Resource[] resources) {
+			this.ontology = ontology;
+			this.resources = resources;
+			this.stamps = new long[resources.length];
+			for (int i = 0; i < resources.length; i++) {
+				stamps[i] = resources[i].getTimeStamp();
+			}
+		}
+
+		void put(String name, List<EObject> elements) {
+			if (PAIRS.contains(name)) {
+				var map = new HashMap<EObject, List<EObject>>();
+				for (int i = 0; i + 1 < elements.size(); i += 2) {
+					map.computeIfAbsent(elements.get(i), k -> new ArrayList<>(2)).add(elements.get(i + 1));
+				}
+				pairs.put(name, map);
+			} else {
+				sets.put(name, Collections.unmodifiableSet(new LinkedHashSet<>(elements)));
+			}
+		}
+
+		/**
+		 * Returns whether none of the resources the sets depend on changed since they
+		 * were read.
+		 */
+		boolean isCurrent() {
+			if (ontology.eResource() != resources[0]) {
+				return false;
+			}
+			for (int i = 0; i < resources.length; i++) {
+				var resource = resources[i];
+				if (!resource.isLoaded() || resource.isModified() || resource.getTimeStamp() != stamps[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Returns the given section, or null if it isn't cached.
+		 */
+		@SuppressWarnings("unchecked")
+		<T> Set<T> getSet(String section) {
+			return (Set<T>) sets.get(section);
+		}
+
+		/**
+		 * Returns the values of the given key in the given pair section, or null if the
+		 * section isn't cached.
+		 */
+		@SuppressWarnings("unchecked")
+		<T> List<T> getValues(String section, EObject key) {
+			var map = pairs.get(section);
+			if (map == null) {
+				return null;
+			}
+			return (List<T>) map.getOrDefault(key, Collections.emptyList());
+		}
+	}
+
+	/**
+	 * Encodes the sets of an ontology, numbering the resources of their elements.
+	 *
+	 * The sections are copied on the calling thread, with the time stamps of the
+	 * resources they can depend on, and encoded by the writer, in a read-only transaction
+	 * of the editing domain if there is one. Nothing is encoded if a resource was changed
+	 * since the sections were copied.
+	 */
+	private static final class Encoder {
+		private final Resource resource;
+		private final Map<String, List<EObject>> sections = new LinkedHashMap<>();
+		private final Map<Resource, Long> timeStamps = new IdentityHashMap<>();
+		private int size;
+
+		Encoder(Resource resource) {
+			this.resource = resource;
+			for (var loaded : resource.getResourceSet().getResources()) {
+				timeStamps.put(loaded, loaded.getTimeStamp());
+			}
+		}
+
+		void section(String name, Collection<? extends EObject> elements) {
+			sections.put(name, new ArrayList<>(elements));
+			size += elements.size();
+		}
+
+		void pairs(String name, Map<? extends EObject, ? extends Collection<? extends EObject>> map) {
+			var elements = new ArrayList<EObject>();
+			for (var entry : map.entrySet()) {
+				for (var value : entry.getValue()) {
+					elements.add(entry.getKey());
+					elements.add(value);
+				}
+			}
+			sections.put(name, elements);
+			size += elements.size();
+		}
+
+		/**
+		 * Returns the number of elements of the sections.
+		 */
+		int size() {
+			return size;
+		}
+
+		/**
+		 * Returns the encoded file, or null if a resource changed since the sections were
+		 * copied or has unsaved changes.
+		 */
+		byte[] encode() throws IOException, InterruptedException {
+			var domain = TransactionUtil.getEditingDomain(resource);
+			if (domain == null) {
+				return toBytes();
+			}
+			var result = new Object[1];
+			domain.runExclusive(() -> {
+				try {
+					result[0] = toBytes();
+				} catch (IOException e) {
+					result[0] = e;
+				}
+			});
+			if (result[0] instanceof IOException) {
+				throw (IOException) result[0];
+			}
+			return (byte[]) result[0];
+		}
+
+		private byte[] toBytes() throws IOException {
+			var resources = new LinkedHashMap<Resource, Integer>();
+			resources.put(resource, 0);
+			var encoded = new ByteArrayOutputStream();
+			var out = new DataOutputStream(encoded);
+			for (var section : sections.entrySet()) {
+				writeString(out, section.getKey());
+				out.writeInt(section.getValue().size());
+				for (var element : section.getValue()) {
+					var elementResource = element.eResource();
+					if (elementResource == null) {
+						return null;
+					}
+					out.writeInt(resources.computeIfAbsent(elementResource, k -> resources.size()));
+					writeString(out, elementResource.getURIFragment(element));
+				}
+			}
+			out.flush();
+
+			var bytes = new ByteArrayOutputStream(encoded.size() + 1024);
+			var file = new DataOutputStream(bytes);
+			file.writeInt(MAGIC);
+			file.writeInt(VERSION);
+			file.writeInt(resources.size());
+			for (var dependency : resources.keySet()) {
+				var timeStamp = timeStamps.get(dependency);
+				if (timeStamp == null || timeStamp != dependency.getTimeStamp() || dependency.isModified() || dependency.getResourceSet() == null) {
+					return null;
+				}
+				var attributes = getAttributes(dependency.getResourceSet(), dependency.getURI());
+				if (attributes == null) {
+					return null;
+				}
+				writeString(file, dependency.getURI().toString());
+				file.writeLong(attributes[0]);
+				file.writeLong(attributes[1]);
+			}
+			file.writeInt(sections.size());
+			encoded.writeTo(file);
+			file.flush();
+			return bytes.toByteArray();
+		}
+
+		private static void writeString(DataOutputStream out, String value) throws IOException {
+			var bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+}
@@ -0,0 +1,311 @@
+package io.opencaesar.oml.tutorial.viewpoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.IPreferenceChangeListener;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+
+import io.opencaesar.oml.Entity;
+import io.opencaesar.oml.EntityReference;
+import io.opencaesar.oml.NamedInstance;
+import io.opencaesar.oml.RelationCardinalityRestrictionAxiom;
+import io.opencaesar.oml.RelationEntity;
+import io.opencaesar.oml.RelationRangeRestrictionAxiom;
+import io.opencaesar.oml.RelationRestrictionAxiom;
+import io.opencaesar.oml.RelationTargetRestrictionAxiom;
+import io.opencaesar.oml.ScalarProperty;
+import io.opencaesar.oml.SpecializationAxiom;
+import io.opencaesar.oml.Statement;
+import io.opencaesar.oml.Vocabulary;
+import io.opencaesar.oml.util.OmlRead;
+
+/**
+ * An index of a vocabulary's statements, classified by kind in a single pass.
+ *
+ * The index is attached to the vocabulary as an adapter and its buckets are
+ * dropped whenever the contents of the vocabulary change, so they are rebuilt
+ * at most once per refresh. The entities sorted by name, offered as candidates in
+ * the properties view, are sorted at most once per rebuild.
+ */
+class VocabularyIndex extends EContentAdapter {
+
+	/**
+	 * The plugin preference holding the number of visualized entities above which the
+	 * Entity Diagram shows name-only nodes. It defaults to the
+	 * <code>io.opencaesar.oml.tutorial.viewpoint.detailThreshold</code> system property,
+	 * or 500.
+	 *
+	 * The threshold applies to a whole vocabulary, not to each node; the Hide Properties
+	 * filter hides the properties of a smaller diagram by hand.
+	 */
+	static final String DETAIL_THRESHOLD = "detailThreshold";
+
+	private static final int DEFAULT_DETAIL_THRESHOLD = Integer.getInteger("io.opencaesar.oml.tutorial.viewpoint.detailThreshold", 500);
+
+	private static final IPreferenceChangeListener PREFERENCE_LISTENER = event -> {
+		if (DETAIL_THRESHOLD.equals(event.getKey())) {
+			VocabularyIndex.detailThreshold = null;
+		}
+	};
+
+	private static volatile Integer detailThreshold;
+
+	static final Comparator<Entity> BY_NAME = Comparator.comparing(Entity::getName, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+	private final Vocabulary vocabulary;
+
+	private volatile Buckets buckets;
+
+	private VocabularyIndex(Vocabulary vocabulary) {
+		this.vocabulary = vocabulary;
+	}
+
+	/**
+	 * Returns the index attached to the given vocabulary, attaching a new one if needed.
+	 */
+	static VocabularyIndex get(Vocabulary vocabulary) {
+		synchronized (vocabulary) {
+			for (Adapter adapter : vocabulary.eAdapters()) {
+				if (adapter instanceof VocabularyIndex) {
+					return (VocabularyIndex) adapter;
+				}
+			}
+			var index = new VocabularyIndex(vocabulary);
+			vocabulary.eAdapters().add(index);
+			return index;
+		}
+	}
+
+	@Override
+	public void notifyChanged(Notification notification) {
+		super.notifyChanged(notification);
+		if (!notification.isTouch()) {
+			buckets = null;
+		}
+	}
+
+	Set<Entity> getVisualizedEntities() {
+		return buckets().visualizedEntities;
+	}
+
+	Set<NamedInstance> getVisualizedNamedInstances() {
+		return buckets().visualizedNamedInstances;
+	}
+
+	Set<RelationRestrictionAxiom> getVisualizedRestrictions() {
+		return buckets().visualizedRestrictions;
+	}
+
+	/**
+	 * Returns the entities owned by the vocabulary, sorted by name.
+	 */
+	List<Entity> getSortedEntities() {
+		return buckets().getSortedEntities();
+	}
+
+	/**
+	 * Returns the scalar properties of the vocabulary whose domain is the given entity.
+	 */
+	List<ScalarProperty> getScalarProperties(Entity entity) {
+		return buckets().propertiesByDomain.getOrDefault(entity, Collections.emptyList());
+	}
+
+	/**
+	 * Returns the scalar properties of the vocabulary by domain.
+	 */
+	Map<Entity, List<ScalarProperty>> getScalarPropertiesByDomain() {
+		return Collections.unmodifiableMap(buckets().propertiesByDomain);
+	}
+
+	/**
+	 * Returns whether the vocabulary is small enough to show entities with their properties.
+	 */
+	boolean isDetailed() {
+		return buckets().visualizedEntities.size() <= getDetailThreshold();
+	}
+
+	/**
+	 * Returns the {@link #DETAIL_THRESHOLD} preference, read again once it changes.
+	 */
+	static int getDetailThreshold() {
+		var result = detailThreshold;
+		if (result == null) {
+			result = detailThreshold = Platform.getPreferencesService().getInt(Activator.PLUGIN_ID, DETAIL_THRESHOLD, DEFAULT_DETAIL_THRESHOLD, null);
+		}
+		return result;
+	}
+
+	/**
+	 * Starts following changes of the {@link #DETAIL_THRESHOLD} preference.
+	 */
+	static void installPreferences() {
+		InstanceScope.INSTANCE.getNode(Activator.PLUGIN_ID).addPreferenceChangeListener(PREFERENCE_LISTENER);
+	}
+
+	/**
+	 * Stops following changes of the {@link #DETAIL_THRESHOLD} preference.
+	 */
+	static void uninstallPreferences() {
+		InstanceScope.INSTANCE.getNode(Activator.PLUGIN_ID).removePreferenceChangeListener(PREFERENCE_LISTENER);
+		detailThreshold = null;
+	}
+
+	private synchronized Buckets buckets() {
+		var result = buckets;
+		if (result == null) {
+			result = buckets = new Buckets(vocabulary);
+		}
+		return result;
+	}
+
+	/**
+	 * The visualization sets of a vocabulary.
+	 */
+	private static class Buckets {
+		final Set<Entity> visualizedEntities;
+		final Set<NamedInstance> visualizedNamedInstances;
+		final Set<RelationRestrictionAxiom> visualizedRestrictions;
+		final Map<Entity, List<ScalarProperty>> propertiesByDomain = new HashMap<>();
+		private final List<Entity> entities;
+		private List<Entity> sortedEntities;
+
+		Buckets(Vocabulary vocabulary) {
+			var statements = vocabulary.getOwnedStatements();
+			Classification classification;
+			if (Parallelism.isParallel(statements.size())) {
+				Parallelism.prepare(vocabulary);
+				classification = new Classification();
+				for (var chunk : Parallelism.mapChunks(statements, Classification::new)) {
+					classification.addAll(chunk);
+				}
+			} else {
+				classification = new Classification(statements);
+			}
+
+			this.entities = classification.entities;
+
+			var entities = new LinkedHashSet<Entity>(classification.entities);
+			// reference entities
+			for (var reference : classification.references) {
+				entities.add((Entity) OmlRead.resolve(reference));
+			}
+			// specialized entities
+			for (var specialization : classification.specializations) {
+				entities.add((Entity) specialization.getSpecializedTerm());
+			}
+			// related entities
+			for (var relationEntity : classification.relationEntities) {
+				entities.add(relationEntity.getSource());
+				entities.add(relationEntity.getTarget());
+			}
+			// range restricted entities
+			for (var restriction : classification.rangeRestrictions) {
+				entities.add(restriction.getRange());
+			}
+			// cardinality range restricted entities
+			for (var restriction : classification.cardinalityRestrictions) {
+				entities.add(restriction.getRange());
+			}
+			visualizedEntities = Collections.unmodifiableSet(entities);
+
+			// target restricted instances
+			var instances = new LinkedHashSet<NamedInstance>();
+			for (var restriction : classification.targetRestrictions) {
+				instances.add(restriction.getTarget());
+			}
+			visualizedNamedInstances = Collections.unmodifiableSet(instances);
+
+			visualizedRestrictions = Collections.unmodifiableSet(classification.restrictions);
+
+			// scalar properties by domain
+			for (var property : classification.properties) {
+				propertiesByDomain.computeIfAbsent(property.getDomain(), k -> new ArrayList<>(4)).add(property);
+			}
+			propertiesByDomain.replaceAll((domain, properties) -> Collections.unmodifiableList(properties));
+		}
+
+		synchronized List<Entity> getSortedEntities() {
+			if (sortedEntities == null) {
+				var list = new ArrayList<Entity>(entities);
+				list.sort(BY_NAME);
+				sortedEntities = Collections.unmodifiableList(list);
+			}
+			return sortedEntities;
+		}
+	}
+
+	/**
+	 * Statements of a vocabulary (or of a chunk of them) bucketed by kind.
+	 */
+	private static class Classification {
+		final List<Entity> entities = new ArrayList<>();
+		final List<EntityReference> references = new ArrayList<>();
+		final List<SpecializationAxiom> specializations = new ArrayList<>();
+		final List<RelationEntity> relationEntities = new ArrayList<>();
+		final List<RelationRangeRestrictionAxiom> rangeRestrictions = new ArrayList<>();
+		final List<RelationCardinalityRestrictionAxiom> cardinalityRestrictions = new ArrayList<>();
+		final List<RelationTargetRestrictionAxiom> targetRestrictions = new ArrayList<>();
+		final List<ScalarProperty> properties = new ArrayList<>();
+		final Set<RelationRestrictionAxiom> restrictions = new LinkedHashSet<>();
+
+		Classification() {
+		}
+
+		Classification(List<? extends Statement> statements) {
+			for (var statement : statements) {
+				if (statement instanceof Entity) {
+					var entity = (Entity) statement;
+					entities.add(entity);
+					if (entity instanceof RelationEntity) {
+						relationEntities.add((RelationEntity) entity);
+					}
+					specializations.addAll(entity.getOwnedSpecializations());
+					classify(entity.getOwnedRelationRestrictions());
+				} else if (statement instanceof EntityReference) {
+					var reference = (EntityReference) statement;
+					references.add(reference);
+					specializations.addAll(reference.getOwnedSpecializations());
+					classify(reference.getOwnedRelationRestrictions());
+				} else if (statement instanceof ScalarProperty) {
+					properties.add((ScalarProperty) statement);
+				}
+			}
+		}
+
+		void addAll(Classification other) {
+			entities.addAll(other.entities);
+			references.addAll(other.references);
+			specializations.addAll(other.specializations);
+			relationEntities.addAll(other.relationEntities);
+			rangeRestrictions.addAll(other.rangeRestrictions);
+			cardinalityRestrictions.addAll(other.cardinalityRestrictions);
+			targetRestrictions.addAll(other.targetRestrictions);
+			properties.addAll(other.properties);
+			restrictions.addAll(other.restrictions);
+		}
+
+		private void classify(List<RelationRestrictionAxiom> axioms) {
+			for (var axiom : axioms) {
+				restrictions.add(axiom);
+				if (axiom instanceof RelationRangeRestrictionAxiom) {
+					rangeRestrictions.add((RelationRangeRestrictionAxiom) axiom);
+				} else if (axiom instanceof RelationCardinalityRestrictionAxiom) {
+					cardinalityRestrictions.add((RelationCardinalityRestrictionAxiom) axiom);
+				} else if (axiom instanceof RelationTargetRestrictionAxiom) {
+					targetRestrictions.add((RelationTargetRestrictionAxiom) axiom);
+				}
+			}
+		}
+	}
+}